@@ -0,0 +1,84 @@
+package bst.jmh;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bst.BST;
+
+/**
+ * This class benchmarks the methods only BST has, get by index and getRange,
+ * for the different balancing strategies.
+ * 
+ * @author Kei Oshima.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class BSTBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int RANGE_WIDTH = 100;
+
+    @Param({ "1000", "10000", "100000", "1000000", "10000000" })
+    int size;
+
+    @Param({ "RANDOM", "SORTED", "REVERSE_SORTED", "ZIPFIAN", "CLUSTERED" })
+    KeyDistribution distribution;
+
+    @Param({ "RED_BLACK", "AVL" })
+    BST.Balance balance;
+
+    BST<Integer> tree;
+    Integer[] probes;
+    int[] indexes;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int[] keys = distribution.keys(size, random);
+        tree = new BST<Integer>(balance);
+        for (int key : keys) {
+            tree.add(key);
+        }
+        probes = distribution.probes(keys, PROBES, random);
+        indexes = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            indexes[i] = tree.rank(probes[i]);
+        }
+    }
+
+    private int nextIndex() {
+        return next++ & (PROBES - 1);
+    }
+
+    @Benchmark
+    public Integer get() {
+        return tree.get(indexes[nextIndex()]);
+    }
+
+    @Benchmark
+    public ArrayList<Integer> getRange() {
+        Integer from = probes[nextIndex()];
+        return tree.getRange(from, from + 2 * RANGE_WIDTH);
+    }
+
+}
@@ -0,0 +1,164 @@
+package bst.jmh;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This enum describes how the keys of a benchmark are chosen.
+ * Every distribution gives the keys added to the set, in the order they are
+ * added, and a stream of keys to look up. The keys in the set are always even,
+ * so a key with its lowest bit set is never in the set yet.
+ * 
+ * @author Kei Oshima.
+ */
+
+public enum KeyDistribution {
+
+    /**
+     * keys spread uniformly over the int range, added and looked up in random
+     * order.
+     */
+    RANDOM,
+
+    /**
+     * keys added in ascending order and looked up in ascending order.
+     */
+    SORTED,
+
+    /**
+     * keys added in descending order and looked up in descending order.
+     */
+    REVERSE_SORTED,
+
+    /**
+     * keys added in random order and looked up with a skewed, roughly Zipfian
+     * (exponent 1) popularity where a few keys get most of the lookups.
+     */
+    ZIPFIAN,
+
+    /**
+     * keys in runs of 64 neighbouring values, looked up a few keys apart inside
+     * a random run.
+     */
+    CLUSTERED;
+
+    // length of a cluster of neighbouring keys.
+    private static final int CLUSTER = 64;
+
+    /**
+     * method that returns the keys to be added to the set in the order they
+     * should be added.
+     * 
+     * @param size   the number of distinct keys.
+     * @param random the source of randomness.
+     * @return the keys in insertion order.
+     */
+    public int[] keys(int size, Random random) {
+        int[] keys = new int[size];
+        switch (this) {
+        case SORTED:
+            for (int i = 0; i < size; i++) {
+                keys[i] = 2 * i;
+            }
+            return keys;
+        case REVERSE_SORTED:
+            for (int i = 0; i < size; i++) {
+                keys[i] = 2 * (size - 1 - i);
+            }
+            return keys;
+        case CLUSTERED:
+            // clusters start at random multiples of the cluster spacing.
+            int clusters = (size + CLUSTER - 1) / CLUSTER;
+            int[] bases = distinctEven(clusters, random, 4 * CLUSTER);
+            for (int i = 0; i < size; i++) {
+                keys[i] = bases[i / CLUSTER] + 2 * (i % CLUSTER);
+            }
+            shuffle(keys, random);
+            return keys;
+        default:
+            return distinctEven(size, random, 2);
+        }
+    }
+
+    /**
+     * method that returns a stream of keys to look up in a set holding the given
+     * keys, boxed up front so boxing is not part of the measured work. Every
+     * probe is one of the keys, so it is even.
+     * 
+     * @param keys   the keys in the set.
+     * @param count  the number of lookups, a power of two.
+     * @param random the source of randomness.
+     * @return the keys to look up.
+     */
+    public Integer[] probes(int[] keys, int count, Random random) {
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        Integer[] probes = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            int key;
+            switch (this) {
+            case SORTED:
+                key = sorted[(int) ((long) i * n / count)];
+                break;
+            case REVERSE_SORTED:
+                key = sorted[n - 1 - (int) ((long) i * n / count)];
+                break;
+            case ZIPFIAN:
+                // n to the power of a uniform value gives P(rank <= r) = ln r / ln n.
+                int rank = (int) Math.pow(n, random.nextDouble()) - 1;
+                key = sorted[Math.min(Math.max(rank, 0), n - 1)];
+                break;
+            case CLUSTERED:
+                // a member a few places after a random one, mostly in the same run.
+                int index = random.nextInt(n) + random.nextInt(CLUSTER / 8);
+                key = sorted[Math.min(index, n - 1)];
+                break;
+            default:
+                key = sorted[random.nextInt(n)];
+            }
+            probes[i] = key;
+        }
+        return probes;
+    }
+
+    // returns count distinct random multiples of step, with step a power of two.
+    private static int[] distinctEven(int count, Random random, int step) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt() & -step;
+        }
+        // replace the duplicates until there are none left.
+        while (true) {
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            boolean duplicates = false;
+            for (int i = 1; i < count; i++) {
+                if (sorted[i] == sorted[i - 1]) {
+                    duplicates = true;
+                    break;
+                }
+            }
+            if (!duplicates) {
+                return values;
+            }
+            Arrays.sort(values);
+            for (int i = 1; i < count; i++) {
+                if (values[i] == values[i - 1]) {
+                    values[i] = random.nextInt() & -step;
+                }
+            }
+            shuffle(values, random);
+        }
+    }
+
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package bst.jmh;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import bst.BST;
+
+/**
+ * This class benchmarks the NavigableSet operations of BST against TreeSet and
+ * ConcurrentSkipListSet for different sizes and key distributions.
+ * The unbalanced BST is left out since sorted keys make it a linked list.
+ * Run it with the GC profiler to see the allocation rate:
+ * java -jar target/benchmarks.jar SortedSetBenchmark -prof gc
+ * 
+ * @author Kei Oshima.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class SortedSetBenchmark {
+
+    // number of looked up keys, a power of two so the index can be masked.
+    private static final int PROBES = 1 << 16;
+    // number of keys covered by a range scan.
+    private static final int RANGE_WIDTH = 100;
+
+    @Param({ "1000", "10000", "100000", "1000000", "10000000" })
+    int size;
+
+    @Param({ "RANDOM", "SORTED", "REVERSE_SORTED", "ZIPFIAN", "CLUSTERED" })
+    KeyDistribution distribution;
+
+    @Param({ "BST_RED_BLACK", "BST_AVL", "TREE_SET", "SKIP_LIST" })
+    String implementation;
+
+    NavigableSet<Integer> set;
+    Integer[] probes;
+    // the probes with the lowest bit set, which are never in the set because
+    // all its keys are even.
+    Integer[] missing;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int[] keys = distribution.keys(size, random);
+        set = newSet(implementation);
+        for (int key : keys) {
+            set.add(key);
+        }
+        probes = distribution.probes(keys, PROBES, random);
+        missing = new Integer[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            missing[i] = probes[i] | 1;
+        }
+    }
+
+    static NavigableSet<Integer> newSet(String implementation) {
+        switch (implementation) {
+        case "BST_RED_BLACK":
+            return new BST<Integer>(BST.Balance.RED_BLACK);
+        case "BST_AVL":
+            return new BST<Integer>(BST.Balance.AVL);
+        case "TREE_SET":
+            return new TreeSet<Integer>();
+        case "SKIP_LIST":
+            return new ConcurrentSkipListSet<Integer>();
+        default:
+            throw new IllegalArgumentException(implementation);
+        }
+    }
+
+    // returns the index of the next probe.
+    private int nextIndex() {
+        return next++ & (PROBES - 1);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return set.contains(probes[nextIndex()]);
+    }
+
+    @Benchmark
+    public Integer ceiling() {
+        return set.ceiling(missing[nextIndex()]);
+    }
+
+    // adds a key that is not in the set and removes it again so the size stays
+    // the same.
+    @Benchmark
+    public boolean addAndRemove() {
+        Integer key = missing[nextIndex()];
+        set.add(key);
+        return set.remove(key);
+    }
+
+    // removes a key of the set and adds it back.
+    @Benchmark
+    public boolean removeAndAdd() {
+        Integer key = probes[nextIndex()];
+        set.remove(key);
+        return set.add(key);
+    }
+
+    @Benchmark
+    public void rangeScan(Blackhole blackhole) {
+        int from = probes[nextIndex()];
+        for (Integer key : set.subSet(from, true, from + 2 * RANGE_WIDTH, true)) {
+            blackhole.consume(key);
+        }
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (Iterator<Integer> x = set.iterator(); x.hasNext();) {
+            sum += x.next();
+        }
+        return sum;
+    }
+
+}
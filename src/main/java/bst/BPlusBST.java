@@ -0,0 +1,779 @@
+package bst;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class represents a sorted set that keeps its elements in a B+ tree
+ * instead of one node per element.
+ * Every node holds up to 64 elements in one array, so a lookup only touches a
+ * few nodes even for very large sets. The elements themselves are only kept in
+ * the leaves and every leaf is linked to its neighbours, so iterating and
+ * getRange read the leaves one after another.
+ * The elements are ordered using their natural ordering or by a comparator
+ * provided when the tree is constructed, like BST.
+ * Only the core of the BST methods is provided: add, remove, contains, first,
+ * last, ceiling, higher, floor, lower, getRange, height and an ascending
+ * iterator. It is not a NavigableSet, so there are no views, descending order
+ * or polling. It also has none of the index methods such as get(int) and rank,
+ * the batch lookups, the cursor or the set algebra of BST. Use BST when those
+ * are needed.
+ * 
+ * @author Kei Oshima.
+ */
+
+public class BPlusBST<E> extends AbstractSet<E> {
+
+    // most elements a leaf, or separators an inner node, can hold.
+    private static final int NODE_CAPACITY = 64;
+    // fewest elements a node other than the root can hold.
+    private static final int MIN_COUNT = NODE_CAPACITY / 2;
+
+    /*
+     * node of the tree, the arrays have room for one extra entry so a node can
+     * overflow before it is split.
+     */
+    private static class Node {
+        Object[] keys = new Object[NODE_CAPACITY + 1];
+        int count = 0;
+    }
+
+    // leaf holding the elements, linked to the leaves before and after it.
+    private static class Leaf extends Node {
+        Leaf next;
+        Leaf prev;
+    }
+
+    // inner node, every element in children[i] is less than keys[i] and every
+    // element in children[i + 1] is greater than or equal to it.
+    private static class Inner extends Node {
+        Node[] children = new Node[NODE_CAPACITY + 2];
+    }
+
+    // variables needed through the program.
+    private Node root;
+    private int size = 0;
+    // number of inner levels above the leaves.
+    private int depth = 0;
+    // the comparator ordering the elements, or null for the natural ordering.
+    private final Comparator<? super E> comparator;
+    // number of structural modifications, used by the iterator to fail fast.
+    private int modCount = 0;
+
+    // the inner nodes and child indexes passed on the way down to a leaf, reused
+    // by add and remove.
+    private Inner[] path = new Inner[4];
+    private int[] slots = new int[4];
+
+    /**
+     * constructs a new empty tree sorted according to it's natural ordering of its
+     * elements
+     */
+    public BPlusBST() {
+        this(null);
+    }
+
+    /**
+     * constructs a new empty tree sorted according to the given comparator.
+     * 
+     * @param comparator the comparator used to order the tree, or null to use the
+     *                   natural ordering of the elements.
+     */
+    public BPlusBST(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     * 
+     * @throws NullPointerException if the given element is null
+     * @param e element to be added to this set.
+     * @return true if the element was not already present, false otherwise.
+     */
+    @Override
+    public boolean add(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        if (root == null) {
+            // compare the element with itself to make sure it can be ordered.
+            compare(e, e);
+            Leaf leaf = new Leaf();
+            leaf.keys[0] = e;
+            leaf.count = 1;
+            root = leaf;
+            size++;
+            modCount++;
+            return true;
+        }
+
+        Leaf leaf = descend(e);
+        int index = bound(leaf, e, true);
+        // if the element is already in the tree we don't change and return false.
+        if (index < leaf.count && compare(leaf.keys[index], e) == 0) {
+            return false;
+        }
+        insertAt(leaf.keys, leaf.count, index, e);
+        leaf.count++;
+        size++;
+        modCount++;
+        if (leaf.count > NODE_CAPACITY) {
+            splitLeaf(leaf);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the specific element from the tree if it is present.
+     * 
+     * @param o-object that is to be removed from this set if it is present.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the tree.
+     * @return true if the tree contained the specific element.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            return false;
+        }
+
+        Leaf leaf = descend(o);
+        int index = bound(leaf, o, true);
+        if (index == leaf.count || compare(leaf.keys[index], o) != 0) {
+            return false;
+        }
+        removeAt(leaf.keys, leaf.count, index);
+        leaf.count--;
+        size--;
+        modCount++;
+
+        // walk back up the path while the node has too few elements.
+        Node node = leaf;
+        for (int level = depth - 1; level >= 0 && node.count < MIN_COUNT; level--) {
+            fixUnderflow(path[level], slots[level]);
+            node = path[level];
+        }
+        Arrays.fill(path, 0, depth, null);
+
+        if (size == 0) {
+            root = null;
+        } else if (root.count == 0) {
+            // the root has a single child left, which becomes the new root.
+            root = ((Inner) root).children[0];
+            depth--;
+        }
+        return true;
+    }
+
+    /**
+     * method the should return true if the set contains the specified element.
+     * 
+     * @param o- object to be checked for containment in this set.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the tree.
+     * @return true if this set does contain the specified element.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            return false;
+        }
+        Leaf leaf = findLeaf(o);
+        int index = bound(leaf, o, true);
+        return index < leaf.count && compare(leaf.keys[index], o) == 0;
+    }
+
+    /**
+     * method that returns the number of element in the tree.
+     * 
+     * @return the number of elements in the tree.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * removes all the elements from the set.
+     */
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+        depth = 0;
+        modCount++;
+    }
+
+    /**
+     * method that returns the first/lowest element currently in the tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the first (lowest) element currently in the tree.
+     */
+    public E first() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(getFirstLeaf(), 0);
+    }
+
+    /**
+     * method that returns the last/highest element in this tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the last/highest element currently in the tree.
+     */
+    public E last() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[node.count];
+        }
+        return keyAt((Leaf) node, node.count - 1);
+    }
+
+    /**
+     * method that returns the least element in this tree greater than or equal to
+     * the given element. Or null if the element does not exist.
+     * 
+     * @param e - the value that we want to match.
+     * @return the least element that is greater than or equal, or null if there is
+     *         no such element.
+     */
+    public E ceiling(E e) {
+        return getCeiling(e, true);
+    }
+
+    /**
+     * method that returns the least element in this set that is strictly greater
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @return the least element greater than e or null if there is no such element.
+     */
+    public E higher(E e) {
+        return getCeiling(e, false);
+    }
+
+    /**
+     * method that returns the greatest element in this set less than or equal to
+     * the given element or null if no such element exist.
+     * 
+     * @param e- the value we want to match.
+     * @return the greatest element less than or equal to the parameter, or null if
+     *         no such element exist.
+     */
+    public E floor(E e) {
+        return getFloor(e, true);
+    }
+
+    /**
+     * method that returns the greatest element in this set that is strictly less
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @return the greatest element less than e or null if there is no such element.
+     */
+    public E lower(E e) {
+        return getFloor(e, false);
+    }
+
+    /**
+     * method that returns a collection whose elements are in the range of
+     * fromElement to toElement both being inclusive, in ascending order. The
+     * elements are copied leaf by leaf.
+     * 
+     * @param fromElement - low endpoint (inclusive of the returned collection.
+     * @param toElement-  high endpoint (inclusive) of the returned collection.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return returns a collection containing a portion of the tree whose elements
+     *         range fromElement to toElement inclusive
+     */
+    public ArrayList<E> getRange(E fromElement, E toElement) {
+        if (fromElement == null || toElement == null) {
+            throw new NullPointerException();
+        }
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        ArrayList<E> range = new ArrayList<E>();
+        if (root == null) {
+            return range;
+        }
+        Leaf leaf = findLeaf(fromElement);
+        int index = bound(leaf, fromElement, true);
+        while (leaf != null) {
+            // the whole leaf is in range when its last element is.
+            int end = leaf.count;
+            if (compare(leaf.keys[end - 1], toElement) > 0) {
+                end = bound(leaf, toElement, false);
+            }
+            for (int i = index; i < end; i++) {
+                range.add(keyAt(leaf, i));
+            }
+            if (end < leaf.count) {
+                break;
+            }
+            leaf = leaf.next;
+            index = 0;
+        }
+        return range;
+    }
+
+    /**
+     * method that returns the height of the tree, which is the number of inner
+     * levels above the leaves.
+     * 
+     * @return the height of the tree or 0 if the tree is empty or a single leaf.
+     */
+    public int height() {
+        return depth;
+    }
+
+    /**
+     * method that checks the structure of the tree one level at a time: the number
+     * of entries in every node, the order of the elements and separators, that
+     * all leaves are at the same depth and the links between the leaves. Used by
+     * the tests.
+     * 
+     * @throws IllegalStateException at the first rule that is broken.
+     */
+    void checkInvariants() {
+        if (root == null) {
+            if (size != 0 || depth != 0) {
+                throw new IllegalStateException("empty tree with a size or depth");
+            }
+            return;
+        }
+        // the nodes of the current level, and the bounds their elements must be
+        // within, null meaning unbounded.
+        ArrayList<Node> level = new ArrayList<Node>();
+        ArrayList<Object> lows = new ArrayList<Object>();
+        ArrayList<Object> highs = new ArrayList<Object>();
+        level.add(root);
+        lows.add(null);
+        highs.add(null);
+
+        for (int d = 0; d <= depth; d++) {
+            ArrayList<Node> below = new ArrayList<Node>();
+            ArrayList<Object> belowLows = new ArrayList<Object>();
+            ArrayList<Object> belowHighs = new ArrayList<Object>();
+            for (int i = 0; i < level.size(); i++) {
+                Node node = level.get(i);
+                if ((d == depth) != (node instanceof Leaf)) {
+                    throw new IllegalStateException("leaf at the wrong depth");
+                }
+                int min = (node == root) ? 1 : MIN_COUNT;
+                if (node.count < min || node.count > NODE_CAPACITY) {
+                    throw new IllegalStateException("node with " + node.count + " entries");
+                }
+                for (int k = 0; k < node.keys.length; k++) {
+                    if ((k < node.count) != (node.keys[k] != null)) {
+                        throw new IllegalStateException("stale entry in a node");
+                    }
+                }
+                for (int k = 1; k < node.count; k++) {
+                    if (compare(node.keys[k - 1], node.keys[k]) >= 0) {
+                        throw new IllegalStateException("out of order at " + node.keys[k]);
+                    }
+                }
+                Object low = lows.get(i);
+                Object high = highs.get(i);
+                if ((low != null && compare(node.keys[0], low) < 0)
+                        || (high != null && compare(node.keys[node.count - 1], high) >= 0)) {
+                    throw new IllegalStateException("entry outside its separators at " + node.keys[0]);
+                }
+                if (node instanceof Inner) {
+                    Inner inner = (Inner) node;
+                    for (int k = 0; k < inner.children.length; k++) {
+                        if ((k <= inner.count) != (inner.children[k] != null)) {
+                            throw new IllegalStateException("stale child in a node");
+                        }
+                    }
+                    for (int k = 0; k <= inner.count; k++) {
+                        below.add(inner.children[k]);
+                        belowLows.add((k == 0) ? low : inner.keys[k - 1]);
+                        belowHighs.add((k == inner.count) ? high : inner.keys[k]);
+                    }
+                }
+            }
+            if (d < depth) {
+                level = below;
+                lows = belowLows;
+                highs = belowHighs;
+            }
+        }
+
+        // the last level holds the leaves from left to right.
+        int count = 0;
+        Leaf previous = null;
+        for (Node node : level) {
+            Leaf leaf = (Leaf) node;
+            if (leaf.prev != previous || (previous != null && previous.next != leaf)) {
+                throw new IllegalStateException("broken leaf links at " + leaf.keys[0]);
+            }
+            count += leaf.count;
+            previous = leaf;
+        }
+        if (previous.next != null) {
+            throw new IllegalStateException("last leaf has a next leaf");
+        }
+        if (count != size) {
+            throw new IllegalStateException("size is " + size + " but the leaves hold " + count);
+        }
+    }
+
+    /**
+     * method that returns the comparator used to order the elements in this tree.
+     * 
+     * @return the comparator or null if the tree uses the natural ordering of its
+     *         elements.
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * method that returns an iterator over the elements in this tree in ascending
+     * order, it walks the linked leaves and supports remove.
+     * 
+     * @return an iterator over the elements in the set in ascending order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new KeyIterator();
+    }
+
+    /*
+     * iterator that walks the leaves in ascending order.
+     */
+    private class KeyIterator implements Iterator<E> {
+
+        Leaf leaf = (root == null) ? null : getFirstLeaf();
+        int index = 0;
+        E lastReturned = null;
+        int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public E next() {
+            if (leaf == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturned = keyAt(leaf, index++);
+            if (index == leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            return lastReturned;
+        }
+
+        // removing can merge or split leaves, so the position is found again
+        // from the element that was removed.
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            BPlusBST.this.remove(lastReturned);
+            leaf = null;
+            if (root != null) {
+                leaf = findLeaf(lastReturned);
+                index = bound(leaf, lastReturned, false);
+                if (index == leaf.count) {
+                    leaf = leaf.next;
+                    index = 0;
+                }
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+    }
+
+    /**
+     * method that compares two elements using the comparator of the tree, or their
+     * natural ordering if the tree has no comparator.
+     * 
+     * @throws ClassCastException if the elements cannot be compared.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        if (comparator == null) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return comparator.compare((E) a, (E) b);
+    }
+
+    // returns the element at the index of the leaf.
+    @SuppressWarnings("unchecked")
+    private E keyAt(Leaf leaf, int index) {
+        return (E) leaf.keys[index];
+    }
+
+    /**
+     * method that returns the index of the first key in the node greater than or
+     * equal to o, or strictly greater than o if not inclusive, using a binary
+     * search.
+     */
+    private int bound(Node node, Object o, boolean inclusive) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(node.keys[mid], o);
+            if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // returns the leaf where the element is or would be.
+    private Leaf findLeaf(Object o) {
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[bound(node, o, false)];
+        }
+        return (Leaf) node;
+    }
+
+    // same as findLeaf but records the inner nodes and child indexes in the path.
+    private Leaf descend(Object o) {
+        if (path.length < depth) {
+            path = new Inner[depth * 2];
+            slots = new int[depth * 2];
+        }
+        Node node = root;
+        for (int level = 0; level < depth; level++) {
+            Inner inner = (Inner) node;
+            int slot = bound(inner, o, false);
+            path[level] = inner;
+            slots[level] = slot;
+            node = inner.children[slot];
+        }
+        return (Leaf) node;
+    }
+
+    // returns the left most leaf.
+    private Leaf getFirstLeaf() {
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[0];
+        }
+        return (Leaf) node;
+    }
+
+    // returns the least element greater than (or equal to, if inclusive) e or null.
+    private E getCeiling(E e, boolean inclusive) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            return null;
+        }
+        Leaf leaf = findLeaf(e);
+        int index = bound(leaf, e, inclusive);
+        if (index < leaf.count) {
+            return keyAt(leaf, index);
+        }
+        return (leaf.next == null) ? null : keyAt(leaf.next, 0);
+    }
+
+    // returns the greatest element less than (or equal to, if inclusive) e or null.
+    private E getFloor(E e, boolean inclusive) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            return null;
+        }
+        Leaf leaf = findLeaf(e);
+        int index = bound(leaf, e, !inclusive) - 1;
+        if (index >= 0) {
+            return keyAt(leaf, index);
+        }
+        return (leaf.prev == null) ? null : keyAt(leaf.prev, leaf.prev.count - 1);
+    }
+
+    // shifts the entries from the index one place to the right and stores o there.
+    private static void insertAt(Object[] array, int count, int index, Object o) {
+        System.arraycopy(array, index, array, index + 1, count - index);
+        array[index] = o;
+    }
+
+    // shifts the entries after the index one place to the left.
+    private static void removeAt(Object[] array, int count, int index) {
+        System.arraycopy(array, index + 1, array, index, count - index - 1);
+        array[count - 1] = null;
+    }
+
+    /**
+     * method that splits a full leaf in two and then walks up the path adding the
+     * separator to the parent, splitting every inner node that overflows and
+     * growing a new root when the old root is split.
+     */
+    private void splitLeaf(Leaf leaf) {
+        Leaf right = new Leaf();
+        int mid = leaf.count / 2;
+        right.count = leaf.count - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+        Arrays.fill(leaf.keys, mid, leaf.count, null);
+        leaf.count = mid;
+        right.next = leaf.next;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        }
+        leaf.next = right;
+        right.prev = leaf;
+
+        Object separator = right.keys[0];
+        Node newChild = right;
+        for (int level = depth - 1; level >= 0; level--) {
+            Inner parent = path[level];
+            int slot = slots[level];
+            insertAt(parent.keys, parent.count, slot, separator);
+            insertAt(parent.children, parent.count + 1, slot + 1, newChild);
+            parent.count++;
+            if (parent.count <= NODE_CAPACITY) {
+                Arrays.fill(path, 0, depth, null);
+                return;
+            }
+
+            // the middle separator moves up and is not kept in either half.
+            Inner sibling = new Inner();
+            mid = parent.count / 2;
+            separator = parent.keys[mid];
+            sibling.count = parent.count - mid - 1;
+            System.arraycopy(parent.keys, mid + 1, sibling.keys, 0, sibling.count);
+            System.arraycopy(parent.children, mid + 1, sibling.children, 0, sibling.count + 1);
+            Arrays.fill(parent.keys, mid, parent.count, null);
+            Arrays.fill(parent.children, mid + 1, parent.count + 1, null);
+            parent.count = mid;
+            newChild = sibling;
+        }
+
+        // the root was split so the tree grows by one level.
+        Inner newRoot = new Inner();
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = newChild;
+        newRoot.count = 1;
+        root = newRoot;
+        depth++;
+        Arrays.fill(path, 0, depth - 1, null);
+    }
+
+    /**
+     * method that refills the child at the given index of the parent, which has
+     * too few elements, by borrowing from a sibling that has some to spare or by
+     * merging it with a sibling.
+     */
+    private void fixUnderflow(Inner parent, int slot) {
+        if (slot > 0 && parent.children[slot - 1].count > MIN_COUNT) {
+            borrowFromLeft(parent, slot);
+        } else if (slot < parent.count && parent.children[slot + 1].count > MIN_COUNT) {
+            borrowFromRight(parent, slot);
+        } else if (slot > 0) {
+            merge(parent, slot - 1);
+        } else {
+            merge(parent, slot);
+        }
+    }
+
+    // moves the last entry of the left sibling into the child.
+    private void borrowFromLeft(Inner parent, int slot) {
+        Node node = parent.children[slot];
+        Node sibling = parent.children[slot - 1];
+        if (node instanceof Leaf) {
+            insertAt(node.keys, node.count, 0, sibling.keys[sibling.count - 1]);
+            parent.keys[slot - 1] = node.keys[0];
+        } else {
+            Inner inner = (Inner) node;
+            Inner left = (Inner) sibling;
+            insertAt(inner.keys, inner.count, 0, parent.keys[slot - 1]);
+            insertAt(inner.children, inner.count + 1, 0, left.children[left.count]);
+            left.children[left.count] = null;
+            parent.keys[slot - 1] = left.keys[left.count - 1];
+        }
+        sibling.keys[sibling.count - 1] = null;
+        sibling.count--;
+        node.count++;
+    }
+
+    // moves the first entry of the right sibling into the child.
+    private void borrowFromRight(Inner parent, int slot) {
+        Node node = parent.children[slot];
+        Node sibling = parent.children[slot + 1];
+        if (node instanceof Leaf) {
+            node.keys[node.count] = sibling.keys[0];
+            removeAt(sibling.keys, sibling.count, 0);
+            parent.keys[slot] = sibling.keys[0];
+        } else {
+            Inner inner = (Inner) node;
+            Inner right = (Inner) sibling;
+            inner.keys[inner.count] = parent.keys[slot];
+            inner.children[inner.count + 1] = right.children[0];
+            parent.keys[slot] = right.keys[0];
+            removeAt(right.keys, right.count, 0);
+            removeAt(right.children, right.count + 1, 0);
+        }
+        sibling.count--;
+        node.count++;
+    }
+
+    // appends the child after the given index to the child at the index and
+    // removes it and its separator from the parent.
+    private void merge(Inner parent, int slot) {
+        Node left = parent.children[slot];
+        Node right = parent.children[slot + 1];
+        if (left instanceof Leaf) {
+            Leaf leaf = (Leaf) left;
+            System.arraycopy(right.keys, 0, leaf.keys, leaf.count, right.count);
+            leaf.count += right.count;
+            leaf.next = ((Leaf) right).next;
+            if (leaf.next != null) {
+                leaf.next.prev = leaf;
+            }
+        } else {
+            Inner inner = (Inner) left;
+            inner.keys[inner.count] = parent.keys[slot];
+            System.arraycopy(right.keys, 0, inner.keys, inner.count + 1, right.count);
+            System.arraycopy(((Inner) right).children, 0, inner.children, inner.count + 1, right.count + 1);
+            inner.count += right.count + 1;
+        }
+        removeAt(parent.keys, parent.count, slot);
+        removeAt(parent.children, parent.count + 1, slot + 1);
+        parent.count--;
+    }
+
+}
@@ -0,0 +1,3946 @@
+package bst;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * This class represents an implementation of a binary search tree.
+ * With the elements being ordered using their natural ordering, or by a
+ * comparator provided when the tree is constructed.
+ * This class implements many of the methods provided by the java framework's
+ * Treeset class and implements the NavigableSet interface, the subSet, headSet
+ * and tailSet views are backed by the tree itself instead of being copies.
+ * The tree can optionally be kept balanced as an AVL or red-black tree so
+ * that its height stays logarithmic even when elements are added in sorted
+ * order.
+ * For very large sets CompactBST keeps the same kind of tree in parallel
+ * arrays instead of one node object per element, and BPlusBST keeps the
+ * elements in the wide nodes of a B+ tree.
+ * 
+ * @author Kei Oshima.
+ */
+
+public class BST<E> extends AbstractSet<E> implements NavigableSet<E> {
+
+    /**
+     * the balancing strategies a tree can be constructed with.
+     * NONE keeps the plain binary search tree where the shape depends on the
+     * insertion order. AVL and RED_BLACK rebalance the tree on every add and
+     * remove so its height stays logarithmic in its size, even when the elements
+     * arrive already sorted.
+     */
+    public enum Balance {
+        NONE, AVL, RED_BLACK
+    }
+
+    // private node class, static so the nodes do not keep a hidden reference to
+    // the tree.
+    private static class BSTNode<E> {
+        private E data;
+        private BSTNode<E> left;
+        private BSTNode<E> right;
+        private BSTNode<E> parent;
+        // height of the subtree rooted at this node, only maintained in AVL mode.
+        private int height = 1;
+        // color of the node, only used in RED_BLACK mode.
+        private boolean red = true;
+        // number of nodes in the subtree rooted at this node.
+        private int count = 1;
+
+        // node constructor
+        public BSTNode(E data) {
+            this.data = data;
+            this.left = null;
+            this.right = null;
+
+        }
+
+        // node constructor that takes the element and the parent of the new node.
+        public BSTNode(E data, BSTNode<E> parent) {
+            this.data = data;
+            this.parent = parent;
+        }
+
+    }
+
+    // variables needed through the program.
+    private BSTNode<E> root = null;
+    private int size = 0;
+    private final Balance balance;
+    // the comparator ordering the elements, or null for the natural ordering.
+    private final Comparator<? super E> comparator;
+    // number of structural modifications, used by the iterators to fail fast.
+    private int modCount = 0;
+    // told about every operation, or null when nothing is measured.
+    private BSTListener listener = null;
+    // an unbalanced tree is rebalanced when an add goes deeper than this times
+    // log2 of the size, 0 turns it off.
+    private double rebalanceFactor = 0;
+    // sum of the hash codes of the elements, only kept up to date by add and remove
+    // once hashCode has computed it.
+    private int hash = 0;
+    private boolean hashValid = false;
+
+    // the kinds of merges done by merge.
+    private static final int UNION = 0;
+    private static final int INTERSECTION = 1;
+    private static final int DIFFERENCE = 2;
+    // merges of fewer elements than this are not split into parallel tasks.
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+    // first four bytes of a serialized tree, "BST1".
+    private static final int SERIAL_MAGIC = 0x42535431;
+    private static final int SERIAL_BUFFER_SIZE = 1 << 16;
+    // comparisons made so far by each thread, only counted while there is a
+    // listener. Every thread has its own counter so readers running at the same
+    // time and the merge tasks never write to shared state.
+    private static final ThreadLocal<long[]> COMPARISONS = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * constructs a new empty tree sorted according to it's natural ordering of its
+     * elements
+     */
+    public BST() {
+        this(Balance.NONE);
+    }
+
+    /**
+     * constructs a new empty tree sorted according to it's natural ordering of its
+     * elements that is kept balanced using the given strategy.
+     * 
+     * @param balance the balancing strategy used by add and remove.
+     * @throws NullPointerException if the given balance is null
+     */
+    public BST(Balance balance) {
+        this((Comparator<? super E>) null, balance);
+    }
+
+    /**
+     * constructs a new empty tree sorted according to the given comparator.
+     * 
+     * @param comparator the comparator used to order the tree, or null to use the
+     *                   natural ordering of the elements.
+     */
+    public BST(Comparator<? super E> comparator) {
+        this(comparator, Balance.NONE);
+    }
+
+    /**
+     * constructs a new empty tree sorted according to the given comparator that is
+     * kept balanced using the given strategy.
+     * 
+     * @param comparator the comparator used to order the tree, or null to use the
+     *                   natural ordering of the elements.
+     * @param balance    the balancing strategy used by add and remove.
+     * @throws NullPointerException if the given balance is null
+     */
+    public BST(Comparator<? super E> comparator, Balance balance) {
+        if (balance == null) {
+            throw new NullPointerException();
+        }
+        this.comparator = comparator;
+        this.balance = balance;
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * BST constructor that takes in a collection and creates a new tree
+     * Containing the elements in the specified collection sorted according to it's
+     * natural ordering of elements.
+     * the elements are sorted once (or only checked if they are already sorted)
+     * and the tree is built bottom up, perfectly balanced, in linear time.
+     * 
+     * @throws NullPointerException if the given collection is null or contains a
+     *                              null element.
+     * @throws ClassCastException   if the elements cannot be compared with each
+     *                              other.
+     * @param collection
+     */
+    public BST(E[] collection) {
+        this(collection, Balance.NONE);
+    }
+
+    /**
+     * BST constructor that takes in a collection and creates a new tree
+     * Containing the elements in the specified collection sorted according to it's
+     * natural ordering of elements that is kept balanced using the given strategy.
+     * 
+     * @throws NullPointerException if the given collection or balance is null or
+     *                              the collection contains a null element.
+     * @throws ClassCastException   if the elements cannot be compared with each
+     *                              other.
+     * @param collection
+     * @param balance    the balancing strategy used by add and remove.
+     */
+    public BST(E[] collection, Balance balance) {
+        this(balance);
+        if (collection == null) {
+            throw new NullPointerException();
+        }
+        Object[] elements = collection.clone();
+        int n = sortDistinct(elements, elements.length);
+        buildFromSorted(elements, n);
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     * If element is present than we do not add it
+     * Containing the elements in the specified collection sorted according to it's
+     * natural ordering of elements.
+     * 
+     * @throws NullPointerException if the given collection is null
+     * @param element to be added to this set.
+     * @return true if the element was not already present, false otherwise.
+     */
+    public boolean add(E e) {
+
+        // if e is null throw exception
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        long start = startOperation();
+        long compared = comparisonsSoFar(start);
+        boolean added = true;
+        // if the root is null we make the element as the root.
+        if (root == null) {
+            // compare the element with itself to make sure it can be ordered.
+            compare(e, e);
+            size++;
+            modCount++;
+            if (hashValid) {
+                hash += e.hashCode();
+            }
+            root = new BSTNode<E>(e);
+            fixAfterInsertion(root);
+        } else {
+            // descend to the place of the new element.
+            added = addLoop(e);
+        }
+        endOperation(BSTListener.Operation.ADD, start, compared);
+        return added;
+
+    }
+
+    /**
+     * helper method that walks down from the root to where the element belongs
+     * and links a new node there, comparing the element once per level.
+     * 
+     * @param e the element to be added to the tree.
+     * @return true if the tree was changed as a result of the call
+     */
+    private boolean addLoop(E e) {
+        BSTNode<E> node = root;
+        int depth = 1;
+
+        while (true) {
+            int cmp = compare(e, node.data);
+
+            // if the element is already in the tree we don't change and return false.
+            if (cmp == 0) {
+                return false;
+            }
+
+            // here we determine where to add the new value.
+            BSTNode<E> child = (cmp < 0) ? node.left : node.right;
+            if (child == null) {
+                // the free slot was found, we create a new node with the given value.
+                size++;
+                modCount++;
+                if (hashValid) {
+                    hash += e.hashCode();
+                }
+                BSTNode<E> added = new BSTNode<E>(e, node);
+                if (cmp < 0) {
+                    node.left = added;
+                } else {
+                    node.right = added;
+                }
+                fixAfterInsertion(added);
+                if (rebalanceFactor > 0 && depth > rebalanceFactor * log2(size)) {
+                    rebalance();
+                }
+                return true;
+            }
+            // continue in the left or right subtree.
+            node = child;
+            depth++;
+        }
+    }
+
+    /**
+     * Adds all the elements of the specified collection to the tree.
+     * 
+     * @param collection
+     * @throws NullPointerException - if the collection is null or if any element in
+     *                              the collection is null.
+     * @return true if this set was changed as a result of the call.
+     */
+    public boolean addAll(Collection<? extends E> collection) {
+        // check if the given collection is null.
+        if (collection == null) {
+            throw new NullPointerException();
+
+        }
+        int oldSize = size;
+        int count = collection.size();
+
+        // small batches are added one element at a time.
+        if (root != null && !isLargeBatch(count)) {
+            boolean changed = false;
+            // iterate through the collection
+            for (E data : collection) {
+                // if an element in the collection is null we throw an exception
+                if (data == null) {
+                    throw new NullPointerException();
+                }
+                // add the data.
+                if (add(data)) {
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        // otherwise we sort the batch, merge it with the elements of the tree and
+        // rebuild the tree, which is linear after sorting.
+        Object[] batch = collection.toArray();
+        int n = sortDistinct(batch, batch.length);
+        if (n == 0) {
+            return false;
+        }
+        if (root == null) {
+            buildFromSorted(batch, n);
+        } else {
+            Object[] merged = new Object[size + n];
+            buildFromSorted(merged, merge(UNION, toArray(), size, batch, n, merged));
+        }
+        return size != oldSize;
+    }
+
+    /**
+     * method that decides if adding a batch of the given size is cheaper by
+     * rebuilding the tree, which costs about size + count, than by adding every
+     * element, which costs about count * log2(size).
+     */
+    private boolean isLargeBatch(int count) {
+        int log = 32 - Integer.numberOfLeadingZeros(size);
+        return (long) count * log >= (long) size + count;
+    }
+
+    /**
+     * method that sorts the first n elements of the array and removes the
+     * duplicates. Elements that are already in strictly ascending order are only
+     * checked, not sorted.
+     * 
+     * @param elements the array to sort in place.
+     * @param n        the number of elements to look at.
+     * @throws NullPointerException if one of the elements is null.
+     * @return the number of distinct elements now at the front of the array.
+     */
+    private int sortDistinct(Object[] elements, int n) {
+        for (int i = 0; i < n; i++) {
+            if (elements[i] == null) {
+                throw new NullPointerException();
+            }
+        }
+        // check if the elements are already sorted without duplicates.
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++) {
+            sorted = compare(elements[i - 1], elements[i]) < 0;
+        }
+        if (sorted) {
+            if (n == 1) {
+                // compare the element with itself to make sure it can be ordered.
+                compare(elements[0], elements[0]);
+            }
+            return n;
+        }
+
+        Arrays.sort(elements, 0, n, this::compare);
+        // keep the first of every run of equal elements.
+        int distinct = 1;
+        for (int i = 1; i < n; i++) {
+            if (compare(elements[distinct - 1], elements[i]) != 0) {
+                elements[distinct++] = elements[i];
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * method that replaces the contents of the tree with the first n elements of
+     * the given array, which must be sorted and distinct. The tree is built
+     * perfectly balanced so it satisfies the AVL and red-black rules as well.
+     * 
+     * @param elements the sorted distinct elements of the new tree.
+     * @param n        the number of elements to use.
+     */
+    private void buildFromSorted(Object[] elements, int n) {
+        // in a red-black tree only the nodes on the deepest, incomplete level are red.
+        int redLevel = 0;
+        for (int m = n - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+        root = buildFromSorted(elements, 0, n - 1, null, 0, redLevel);
+        size = n;
+        modCount++;
+        hashValid = false;
+    }
+
+    /**
+     * helper method that builds the subtree holding the elements from lo to hi by
+     * making the middle element its root.
+     * the recursion is only as deep as the height of the new tree.
+     * 
+     * @return the root of the new subtree or null if the range is empty.
+     */
+    @SuppressWarnings("unchecked")
+    private BSTNode<E> buildFromSorted(Object[] elements, int lo, int hi, BSTNode<E> parent, int level,
+            int redLevel) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        BSTNode<E> node = new BSTNode<E>((E) elements[mid], parent);
+        node.left = buildFromSorted(elements, lo, mid - 1, node, level + 1, redLevel);
+        node.right = buildFromSorted(elements, mid + 1, hi, node, level + 1, redLevel);
+        node.count = hi - lo + 1;
+        node.red = (level == redLevel);
+        updateHeight(node);
+        return node;
+    }
+
+    /**
+     * method that returns a new tree holding the elements that are in this tree,
+     * in the other tree or in both. The new tree has the comparator and balancing
+     * strategy of this tree, and keeps the element of this tree when both trees
+     * have equal elements.
+     * when one tree is much smaller the larger one is copied and every element of
+     * the smaller one is added to the copy, otherwise both trees are merged in one
+     * pass, split over the common fork/join pool for large trees, and the new tree
+     * is built bottom up.
+     * 
+     * @param other the tree whose elements are added.
+     * @throws NullPointerException if the other tree is null.
+     * @throws ClassCastException   if the elements of the other tree cannot be
+     *                              compared with the elements of this tree.
+     * @return a new tree holding the union of both trees.
+     */
+    public BST<E> union(BST<? extends E> other) {
+        if (other == null) {
+            throw new NullPointerException();
+        }
+        if (other.size <= size && !isLargeBatch(other.size)) {
+            BST<E> result = new BST<E>(comparator, balance);
+            result.buildFromSorted(toArray(), size);
+            for (E e : other) {
+                result.add(e);
+            }
+            return result;
+        }
+        if (root != null && size < other.size && sameOrder(other) && !other.isLargeBatch(size)) {
+            BST<E> result = new BST<E>(comparator, balance);
+            result.buildFromSorted(other.toArray(), other.size);
+            for (BSTNode<E> node = getFirstNode(root); node != null; node = inorderSuccessor(node)) {
+                // an equal element of the other tree is replaced by the one of this tree.
+                BSTNode<E> equal = result.getNode(node.data);
+                if (equal == null) {
+                    result.add(node.data);
+                } else {
+                    equal.data = node.data;
+                }
+            }
+            return result;
+        }
+        return setOperation(UNION, other);
+    }
+
+    /**
+     * method that returns a new tree holding the elements that are in both this
+     * tree and the other tree. The new tree has the comparator and balancing
+     * strategy of this tree, and holds the elements of this tree.
+     * when one tree is much smaller every element of it is looked up in the
+     * other tree, otherwise both trees are merged like in union.
+     * 
+     * @param other the tree to intersect with.
+     * @throws NullPointerException if the other tree is null.
+     * @throws ClassCastException   if the elements of the other tree cannot be
+     *                              compared with the elements of this tree.
+     * @return a new tree holding the intersection of both trees.
+     */
+    public BST<E> intersection(BST<? extends E> other) {
+        if (other == null) {
+            throw new NullPointerException();
+        }
+        if (other.size <= size && !isLargeBatch(other.size)) {
+            Object[] common = new Object[other.size];
+            int count = 0;
+            for (E e : other) {
+                BSTNode<E> equal = getNode(e);
+                if (equal != null) {
+                    common[count++] = equal.data;
+                }
+            }
+            // the elements of a tree that is ordered differently are sorted first.
+            if (!sameOrder(other) && count > 0) {
+                count = sortDistinct(common, count);
+            }
+            BST<E> result = new BST<E>(comparator, balance);
+            result.buildFromSorted(common, count);
+            return result;
+        }
+        if (root != null && size < other.size && sameOrder(other) && !other.isLargeBatch(size)) {
+            Object[] common = new Object[size];
+            int count = 0;
+            for (BSTNode<E> node = getFirstNode(root); node != null; node = inorderSuccessor(node)) {
+                if (other.getNode(node.data) != null) {
+                    common[count++] = node.data;
+                }
+            }
+            BST<E> result = new BST<E>(comparator, balance);
+            result.buildFromSorted(common, count);
+            return result;
+        }
+        return setOperation(INTERSECTION, other);
+    }
+
+    /**
+     * method that returns a new tree holding the elements of this tree that are
+     * not in the other tree. The new tree has the comparator and balancing
+     * strategy of this tree.
+     * when the other tree is much smaller this tree is copied and every element
+     * of the other tree is removed from the copy, when this tree is much smaller
+     * every element of it is looked up in the other tree, otherwise both trees
+     * are merged like in union.
+     * 
+     * @param other the tree whose elements are left out.
+     * @throws NullPointerException if the other tree is null.
+     * @throws ClassCastException   if the elements of the other tree cannot be
+     *                              compared with the elements of this tree.
+     * @return a new tree holding the difference of both trees.
+     */
+    public BST<E> difference(BST<? extends E> other) {
+        if (other == null) {
+            throw new NullPointerException();
+        }
+        if (other.size <= size && !isLargeBatch(other.size)) {
+            BST<E> result = new BST<E>(comparator, balance);
+            result.buildFromSorted(toArray(), size);
+            for (E e : other) {
+                BSTNode<E> equal = result.getNode(e);
+                if (equal != null) {
+                    result.deleteNode(equal);
+                }
+            }
+            return result;
+        }
+        if (root != null && size < other.size && sameOrder(other) && !other.isLargeBatch(size)) {
+            Object[] kept = new Object[size];
+            int count = 0;
+            for (BSTNode<E> node = getFirstNode(root); node != null; node = inorderSuccessor(node)) {
+                if (other.getNode(node.data) == null) {
+                    kept[count++] = node.data;
+                }
+            }
+            BST<E> result = new BST<E>(comparator, balance);
+            result.buildFromSorted(kept, count);
+            return result;
+        }
+        return setOperation(DIFFERENCE, other);
+    }
+
+    /**
+     * Removes all the elements of the specified collection from the tree.
+     * a small collection is removed one element at a time. a much larger tree
+     * with the same ordering is asked about every element of this tree, any
+     * other large collection is sorted and merged with the tree. The tree is
+     * rebuilt if any element is removed this way.
+     * 
+     * @param c collection containing the elements to be removed.
+     * @throws NullPointerException - if the collection is null or contains a null
+     *                              element.
+     * @throws ClassCastException   - if an element of the collection cannot be
+     *                              compared with the elements in the tree.
+     * @return true if this set was changed as a result of the call.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            return false;
+        }
+        if (!isLargeBatch(c.size())) {
+            boolean changed = false;
+            for (Object o : c) {
+                if (remove(o)) {
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        // a much larger tree with the same ordering is asked about every element.
+        if (c instanceof BST && sameOrder((BST<?>) c) && !((BST<?>) c).isLargeBatch(size)) {
+            return retainOrRemove((BST<?>) c, false);
+        }
+
+        Object[] batch = c.toArray();
+        int n = sortDistinct(batch, batch.length);
+        Object[] kept = new Object[size];
+        int count = merge(DIFFERENCE, toArray(), size, batch, n, kept);
+        if (count == size) {
+            return false;
+        }
+        buildFromSorted(kept, count);
+        return true;
+    }
+
+    /**
+     * Retains only the elements in the tree that are contained in the specified
+     * collection. a tree with the same ordering is merged with this one, or when
+     * one of the two is much smaller every element of it is looked up in the
+     * other. any other collection is asked about every element. The tree is
+     * rebuilt if any element is removed.
+     * 
+     * @param c collection containing the elements to be retained.
+     * @throws NullPointerException - if the collection is null.
+     * @return true if this set was changed as a result of the call.
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            return false;
+        }
+
+        Object[] kept;
+        int count = 0;
+        if (c instanceof BST && sameOrder((BST<?>) c)) {
+            BST<?> other = (BST<?>) c;
+            if (!other.isLargeBatch(size)) {
+                // a much larger tree is asked about every element.
+                return retainOrRemove(other, true);
+            }
+            if (!isLargeBatch(other.size)) {
+                // a much smaller tree keeps at most its own elements, looked up here.
+                kept = new Object[other.size];
+                for (Object o : other) {
+                    BSTNode<E> equal = getNode(o);
+                    if (equal != null) {
+                        kept[count++] = equal.data;
+                    }
+                }
+            } else {
+                kept = new Object[size];
+                count = merge(INTERSECTION, toArray(), size, other.toArray(), other.size, kept);
+            }
+        } else {
+            kept = new Object[size];
+            for (BSTNode<E> node = getFirstNode(root); node != null; node = inorderSuccessor(node)) {
+                if (c.contains(node.data)) {
+                    kept[count++] = node.data;
+                }
+            }
+        }
+        if (count == size) {
+            return false;
+        }
+        buildFromSorted(kept, count);
+        return true;
+    }
+
+    /**
+     * method that looks up every element of this tree in the other tree, which
+     * must be ordered the same way, and keeps the elements that are in it when
+     * retain is true or those that are not when it is false. The tree is rebuilt
+     * if any element is removed.
+     * 
+     * @return true if this set was changed.
+     */
+    private boolean retainOrRemove(BST<?> other, boolean retain) {
+        Object[] kept = new Object[size];
+        int count = 0;
+        for (BSTNode<E> node = getFirstNode(root); node != null; node = inorderSuccessor(node)) {
+            if ((other.getNode(node.data) != null) == retain) {
+                kept[count++] = node.data;
+            }
+        }
+        if (count == size) {
+            return false;
+        }
+        buildFromSorted(kept, count);
+        return true;
+    }
+
+    // returns true if the other tree is ordered the same way as this tree.
+    private boolean sameOrder(BST<?> other) {
+        return Objects.equals(comparator, other.comparator);
+    }
+
+    /**
+     * method that merges the elements of this tree with the elements of the other
+     * tree into a new tree, the elements of a tree that is ordered differently are
+     * sorted first.
+     */
+    private BST<E> setOperation(int operation, BST<? extends E> other) {
+        if (other == null) {
+            throw new NullPointerException();
+        }
+        Object[] elements = other.toArray();
+        int n = sameOrder(other) ? elements.length : sortDistinct(elements, elements.length);
+        Object[] merged = new Object[(operation == UNION) ? size + n : size];
+        BST<E> result = new BST<E>(comparator, balance);
+        result.buildFromSorted(merged, merge(operation, toArray(), size, elements, n, merged));
+        return result;
+    }
+
+    /**
+     * method that merges two sorted distinct arrays into the given array, keeping
+     * the elements in either (UNION), in both (INTERSECTION) or only in the first
+     * (DIFFERENCE). Large merges are split over the common fork/join pool.
+     * 
+     * @param out array with room for every element that can be kept.
+     * @return the number of elements written to the start of out.
+     */
+    private int merge(int operation, Object[] a, int na, Object[] b, int nb, Object[] out) {
+        if (na + nb < PARALLEL_THRESHOLD) {
+            return mergeRange(comparator, operation, a, 0, na, b, 0, nb, out, 0);
+        }
+        return ForkJoinPool.commonPool().invoke(new MergeTask(comparator, operation, a, 0, na, b, 0, nb, out));
+    }
+
+    /**
+     * method that merges a[aLo..aHi) with b[bLo..bHi) into out starting at pos,
+     * ordered by the given comparator or the natural ordering if it is null.
+     * 
+     * @return the position after the last element written.
+     */
+    private static int mergeRange(Comparator<?> comparator, int operation, Object[] a, int aLo, int aHi,
+            Object[] b, int bLo, int bHi, Object[] out, int pos) {
+        while (aLo < aHi && bLo < bHi) {
+            int cmp = compare(comparator, a[aLo], b[bLo]);
+            if (cmp < 0) {
+                if (operation != INTERSECTION) {
+                    out[pos++] = a[aLo];
+                }
+                aLo++;
+            } else if (cmp > 0) {
+                if (operation == UNION) {
+                    out[pos++] = b[bLo];
+                }
+                bLo++;
+            } else {
+                // keep the element of the first array if both have it.
+                if (operation != DIFFERENCE) {
+                    out[pos++] = a[aLo];
+                }
+                aLo++;
+                bLo++;
+            }
+        }
+        if (operation != INTERSECTION) {
+            System.arraycopy(a, aLo, out, pos, aHi - aLo);
+            pos += aHi - aLo;
+        }
+        if (operation == UNION) {
+            System.arraycopy(b, bLo, out, pos, bHi - bLo);
+            pos += bHi - bLo;
+        }
+        return pos;
+    }
+
+    // returns the index of the first element in sorted[lo..hi) not less than key.
+    private static int lowerBound(Comparator<?> comparator, Object[] sorted, int lo, int hi, Object key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(comparator, sorted[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /*
+     * task that merges a[aLo..aHi) with b[bLo..bHi). it splits the longer range
+     * in the middle and the other range at the same element, so both halves can
+     * be merged on their own. every half writes at the sum of its start indexes,
+     * which is always free, and the second half is moved down after the first.
+     * the task is static and gets the comparator, so the workers share nothing
+     * with the tree. it is never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static class MergeTask extends RecursiveTask<Integer> {
+
+        final Comparator<?> comparator;
+        final int operation;
+        final Object[] a;
+        final int aLo;
+        final int aHi;
+        final Object[] b;
+        final int bLo;
+        final int bHi;
+        final Object[] out;
+
+        MergeTask(Comparator<?> comparator, int operation, Object[] a, int aLo, int aHi, Object[] b, int bLo,
+                int bHi, Object[] out) {
+            this.comparator = comparator;
+            this.operation = operation;
+            this.a = a;
+            this.aLo = aLo;
+            this.aHi = aHi;
+            this.b = b;
+            this.bLo = bLo;
+            this.bHi = bHi;
+            this.out = out;
+        }
+
+        // returns the number of elements written starting at the write position.
+        @Override
+        protected Integer compute() {
+            int pos = start();
+            if ((aHi - aLo) + (bHi - bLo) < PARALLEL_THRESHOLD) {
+                return mergeRange(comparator, operation, a, aLo, aHi, b, bLo, bHi, out, pos) - pos;
+            }
+            int aMid;
+            int bMid;
+            if (aHi - aLo >= bHi - bLo) {
+                aMid = (aLo + aHi) >>> 1;
+                bMid = lowerBound(comparator, b, bLo, bHi, a[aMid]);
+            } else {
+                bMid = (bLo + bHi) >>> 1;
+                aMid = lowerBound(comparator, a, aLo, aHi, b[bMid]);
+            }
+            MergeTask low = new MergeTask(comparator, operation, a, aLo, aMid, b, bLo, bMid, out);
+            MergeTask high = new MergeTask(comparator, operation, a, aMid, aHi, b, bMid, bHi, out);
+            high.fork();
+            int lowCount = low.compute();
+            int highCount = high.join();
+            System.arraycopy(out, high.start(), out, pos + lowCount, highCount);
+            return lowCount + highCount;
+        }
+
+        // the write position, a difference or intersection has no room for b.
+        int start() {
+            return (operation == UNION) ? aLo + bLo : aLo;
+        }
+
+    }
+
+    /**
+     * Removes the specific element from the tree if it is present.
+     * 
+     * @param o-object that is to be removed from this set if it is present.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the tree.
+     * @return true if the tree contained the specific element.
+     */
+    public boolean remove(Object o) {
+
+        // check if the given object is null
+        if (o == null) {
+            throw new NullPointerException();
+        }
+
+        try {
+            // find the node holding the element, if it is not in our tree we return
+            // false.
+            long start = startOperation();
+            long compared = comparisonsSoFar(start);
+            BSTNode<E> node = getNode(o);
+            if (node != null) {
+                // unlink the node and rebalance the tree if needed.
+                deleteNode(node);
+            }
+            endOperation(BSTListener.Operation.REMOVE, start, compared);
+            return node != null;
+
+        }
+        // catch if the element inputed cannot be compared with the element in the tree.
+        catch (ClassCastException e) {
+            throw new ClassCastException();
+        }
+
+    }
+
+    /**
+     * method that returns the node holding the given element. It takes an Object
+     * like contains and remove, since compare does not need the element type.
+     * 
+     * @param e the element we are looking for.
+     * @throws ClassCastException if the element cannot be compared with the
+     *                            elements of the tree.
+     * @return the node holding the element or null if it is not in the tree.
+     */
+    private BSTNode<E> getNode(Object e) {
+        BSTNode<E> current = root;
+        while (current != null) {
+            int cmp = compare(e, current.data);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * method that removes the given node from the tree.
+     * a node with two children takes the value of its predecessor and the
+     * predecessor node is removed instead, so the node that actually gets
+     * unlinked always has at most one child.
+     * 
+     * @param node to be removed from this tree.
+     */
+    private void deleteNode(BSTNode<E> node) {
+        if (hashValid) {
+            hash -= node.data.hashCode();
+        }
+        // if we have two children first we get the predecessor, the last node of the
+        // left subtree.
+        if (node.left != null && node.right != null) {
+            BSTNode<E> predecessor = getLastNode(node.left);
+            node.data = predecessor.data;
+            node = predecessor;
+        }
+
+        // the node leaves the subtrees of all its ancestors.
+        node.count = 0;
+        adjustCounts(node.parent, -1);
+
+        // the child that takes the place of the removed node, if any.
+        BSTNode<E> replacement = (node.left != null) ? node.left : node.right;
+        BSTNode<E> parent = node.parent;
+
+        if (replacement != null) {
+            replacement.parent = parent;
+            replaceChild(parent, node, replacement);
+            node.left = node.right = node.parent = null;
+            // a removed black node with a child leaves that child to be recolored.
+            if (balance == Balance.RED_BLACK && !node.red) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (parent == null) {
+            // we removed the only node in the tree.
+            root = null;
+        } else {
+            // a removed black leaf is fixed up while it is still linked to the tree.
+            if (balance == Balance.RED_BLACK && !node.red) {
+                fixAfterDeletion(node);
+            }
+            // the fix up may have rotated the leaf below a new parent.
+            parent = node.parent;
+            replaceChild(parent, node, null);
+            node.parent = null;
+        }
+
+        if (balance == Balance.AVL) {
+            rebalanceAvl(parent);
+        }
+        size--;
+        modCount++;
+    }
+
+    /**
+     * method that returns the node holding the very right most element of the
+     * given subtree.
+     */
+    private BSTNode<E> getLastNode(BSTNode<E> current) {
+        // throw if we somehow get a null value.
+        if (current == null) {
+            throw new NullPointerException();
+
+        }
+        BSTNode<E> node = current;
+        while (node.right != null) {
+            node = node.right;
+        }
+
+        return node;
+    }
+
+    /**
+     * method that links the given child in place of the old child of parent, or as
+     * the root if parent is null.
+     */
+    private void replaceChild(BSTNode<E> parent, BSTNode<E> oldChild, BSTNode<E> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+
+    /**
+     * method that restores the balance of the tree after the given node has been
+     * linked in as a leaf.
+     * 
+     * @param node that was just added.
+     */
+    private void fixAfterInsertion(BSTNode<E> node) {
+        // the node joins the subtrees of all its ancestors.
+        adjustCounts(node.parent, 1);
+        if (balance == Balance.AVL) {
+            rebalanceAvl(node.parent);
+        } else if (balance == Balance.RED_BLACK) {
+            fixRedBlackInsertion(node);
+        }
+    }
+
+    /**
+     * method that adds delta to the subtree size of the given node and all of its
+     * ancestors.
+     */
+    private void adjustCounts(BSTNode<E> node, int delta) {
+        while (node != null) {
+            node.count += delta;
+            node = node.parent;
+        }
+    }
+
+    /**
+     * method that walks from the given node up to the root, updating the heights
+     * and rotating every node whose subtrees differ in height by more than one.
+     * 
+     * @param node the lowest node whose subtree may have changed.
+     */
+    private void rebalanceAvl(BSTNode<E> node) {
+        while (node != null) {
+            updateHeight(node);
+            int factor = heightOf(node.left) - heightOf(node.right);
+            // the left subtree is too high.
+            if (factor > 1) {
+                if (heightOf(node.left.left) < heightOf(node.left.right)) {
+                    rotateLeft(node.left);
+                }
+                node = rotateRight(node);
+            }
+            // the right subtree is too high.
+            else if (factor < -1) {
+                if (heightOf(node.right.right) < heightOf(node.right.left)) {
+                    rotateRight(node.right);
+                }
+                node = rotateLeft(node);
+            }
+            node = node.parent;
+        }
+    }
+
+    /**
+     * method that restores the red-black properties after the given red node has
+     * been linked in as a leaf.
+     * 
+     * @param x the node that was just added.
+     */
+    private void fixRedBlackInsertion(BSTNode<E> x) {
+        while (x != root && isRed(x.parent)) {
+            BSTNode<E> grandparent = x.parent.parent;
+            if (x.parent == grandparent.left) {
+                BSTNode<E> uncle = grandparent.right;
+                // a red uncle only needs recoloring, then we continue above.
+                if (isRed(uncle)) {
+                    x.parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    x = grandparent;
+                } else {
+                    if (x == x.parent.right) {
+                        x = x.parent;
+                        rotateLeft(x);
+                    }
+                    x.parent.red = false;
+                    grandparent.red = true;
+                    rotateRight(grandparent);
+                }
+            } else {
+                BSTNode<E> uncle = grandparent.left;
+                // a red uncle only needs recoloring, then we continue above.
+                if (isRed(uncle)) {
+                    x.parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    x = grandparent;
+                } else {
+                    if (x == x.parent.left) {
+                        x = x.parent;
+                        rotateRight(x);
+                    }
+                    x.parent.red = false;
+                    grandparent.red = true;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        root.red = false;
+    }
+
+    /**
+     * method that restores the red-black properties after a black node has been
+     * removed, x is the node that took its place and carries the extra black.
+     * 
+     * @param x the node where the fix up starts.
+     */
+    private void fixAfterDeletion(BSTNode<E> x) {
+        while (x != root && !isRed(x)) {
+            if (x == x.parent.left) {
+                BSTNode<E> sibling = x.parent.right;
+                if (isRed(sibling)) {
+                    sibling.red = false;
+                    x.parent.red = true;
+                    rotateLeft(x.parent);
+                    sibling = x.parent.right;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.red = true;
+                    x = x.parent;
+                } else {
+                    if (!isRed(sibling.right)) {
+                        sibling.left.red = false;
+                        sibling.red = true;
+                        rotateRight(sibling);
+                        sibling = x.parent.right;
+                    }
+                    sibling.red = x.parent.red;
+                    x.parent.red = false;
+                    sibling.right.red = false;
+                    rotateLeft(x.parent);
+                    x = root;
+                }
+            } else {
+                BSTNode<E> sibling = x.parent.left;
+                if (isRed(sibling)) {
+                    sibling.red = false;
+                    x.parent.red = true;
+                    rotateRight(x.parent);
+                    sibling = x.parent.left;
+                }
+                if (!isRed(sibling.right) && !isRed(sibling.left)) {
+                    sibling.red = true;
+                    x = x.parent;
+                } else {
+                    if (!isRed(sibling.left)) {
+                        sibling.right.red = false;
+                        sibling.red = true;
+                        rotateLeft(sibling);
+                        sibling = x.parent.left;
+                    }
+                    sibling.red = x.parent.red;
+                    x.parent.red = false;
+                    sibling.left.red = false;
+                    rotateRight(x.parent);
+                    x = root;
+                }
+            }
+        }
+        x.red = false;
+    }
+
+    /**
+     * method that rotates the subtree rooted at the given node to the left.
+     * 
+     * @param node the root of the subtree.
+     * @return the new root of the subtree.
+     */
+    private BSTNode<E> rotateLeft(BSTNode<E> node) {
+        BSTNode<E> pivot = node.right;
+        node.right = pivot.left;
+        if (pivot.left != null) {
+            pivot.left.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node.parent, node, pivot);
+        pivot.left = node;
+        node.parent = pivot;
+        updateHeight(node);
+        updateHeight(pivot);
+        updateCount(node);
+        updateCount(pivot);
+        return pivot;
+    }
+
+    /**
+     * method that rotates the subtree rooted at the given node to the right.
+     * 
+     * @param node the root of the subtree.
+     * @return the new root of the subtree.
+     */
+    private BSTNode<E> rotateRight(BSTNode<E> node) {
+        BSTNode<E> pivot = node.left;
+        node.left = pivot.right;
+        if (pivot.right != null) {
+            pivot.right.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node.parent, node, pivot);
+        pivot.right = node;
+        node.parent = pivot;
+        updateHeight(node);
+        updateHeight(pivot);
+        updateCount(node);
+        updateCount(pivot);
+        return pivot;
+    }
+
+    // returns the AVL height of the node or 0 for an empty subtree.
+    private int heightOf(BSTNode<E> node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    // recomputes the AVL height of the node from its children.
+    private void updateHeight(BSTNode<E> node) {
+        node.height = Math.max(heightOf(node.left), heightOf(node.right)) + 1;
+    }
+
+    // returns the number of nodes in the subtree or 0 for an empty subtree.
+    private int countOf(BSTNode<E> node) {
+        return (node == null) ? 0 : node.count;
+    }
+
+    // recomputes the subtree size of the node from its children.
+    private void updateCount(BSTNode<E> node) {
+        node.count = countOf(node.left) + countOf(node.right) + 1;
+    }
+
+    // returns true if the node is red, empty subtrees count as black.
+    private boolean isRed(BSTNode<E> node) {
+        return node != null && node.red;
+    }
+
+    /**
+     * method the should return true if the set contains the specified element.
+     * More formally returns true if and only if the set contains the element e such
+     * that Objects.equals(o, e).
+     * 
+     * @param o- object to be checked for containment in this set.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the tree.
+     * @throws NullPointerException - if the specified element is null and this set
+     *                              uses natural ordering, or the comparator does
+     *                              not permit null elements
+     * @return true if this set does contain the specified element.
+     */
+    public boolean contains(Object o) {
+
+        // if object is nulls
+        if (o == null) {
+            throw new NullPointerException();
+
+        }
+
+        try {
+            long start = startOperation();
+            long compared = comparisonsSoFar(start);
+            boolean found = getNode(o) != null;
+            endOperation(BSTListener.Operation.CONTAINS, start, compared);
+            return found;
+
+        } catch (ClassCastException e) {
+            throw new ClassCastException();
+        }
+
+    }
+
+    /**
+     * method that checks if this collection contains all of the elements in the
+     * specified collection.
+     * iterates over the collection and check each element returned by the iterator
+     * 
+     * @param c- collection to be checked for containment in this tree.
+     * @throws NullPointerException if the specified collection contains one or more
+     *                              null elements or if the specified collection is
+     *                              null.
+     * @return true if the tree does contain all of the elements in the specified
+     *         tree false otherwise..
+     */
+    public boolean containsAll(Collection<?> c) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        // iterate through the collections
+        for (Object x : c) {
+            // check if elements in the collection is null
+            if (x == null) {
+                throw new NullPointerException();
+            }
+
+            if (this.contains(x)) {
+                continue;
+            }
+            // if we found an element that is not in the tree from the collection return
+            // false.
+            else {
+                return false;
+            }
+        }
+        return true;
+
+    }
+
+    /**
+     * method that checks which of the given keys are in the tree, returning one
+     * answer per key.
+     * the keys must be sorted in ascending order, so every search can start from
+     * where the previous one ended instead of from the root.
+     * 
+     * @param keys the keys to look up, sorted in ascending order.
+     * @throws NullPointerException     if the array or one of the keys is null.
+     * @throws IllegalArgumentException if the keys are not sorted.
+     * @return an array holding true at the index of every key in the tree.
+     */
+    public boolean[] containsEach(E[] keys) {
+        BSTNode<E>[] ceilings = getCeilingNodes(keys);
+        boolean[] found = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            found[i] = ceilings[i] != null && compare(ceilings[i].data, keys[i]) == 0;
+        }
+        return found;
+    }
+
+    /**
+     * method that returns the ceiling of every given key, the least element in the
+     * tree greater than or equal to it.
+     * the keys must be sorted in ascending order, so every search can start from
+     * where the previous one ended instead of from the root.
+     * 
+     * @param keys the keys to look up, sorted in ascending order.
+     * @throws NullPointerException     if the array or one of the keys is null.
+     * @throws IllegalArgumentException if the keys are not sorted.
+     * @return an array of the same type holding the ceiling of every key, or null
+     *         where a key has none.
+     */
+    public E[] ceilingAll(E[] keys) {
+        BSTNode<E>[] ceilings = getCeilingNodes(keys);
+        E[] result = Arrays.copyOf(keys, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = (ceilings[i] == null) ? null : ceilings[i].data;
+        }
+        return result;
+    }
+
+    /**
+     * method that returns the floor of every given key, the greatest element in
+     * the tree less than or equal to it.
+     * the keys must be sorted in ascending order, the floor of a key is its
+     * ceiling if they are equal and otherwise the node before the ceiling.
+     * 
+     * @param keys the keys to look up, sorted in ascending order.
+     * @throws NullPointerException     if the array or one of the keys is null.
+     * @throws IllegalArgumentException if the keys are not sorted.
+     * @return an array of the same type holding the floor of every key, or null
+     *         where a key has none.
+     */
+    public E[] floorAll(E[] keys) {
+        BSTNode<E>[] ceilings = getCeilingNodes(keys);
+        E[] result = Arrays.copyOf(keys, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            BSTNode<E> node = ceilings[i];
+            if (node == null || compare(node.data, keys[i]) != 0) {
+                if (node != null) {
+                    node = inorderPredecessor(node);
+                } else if (root != null) {
+                    node = getLastNode(root);
+                }
+            }
+            result[i] = (node == null) ? null : node.data;
+        }
+        return result;
+    }
+
+    /**
+     * method that finds the ceiling node of every key of a sorted array.
+     * after the first search from the root every search starts at the ceiling of
+     * the key before, so a batch of m keys costs about m * log(n / m) instead of
+     * m * log(n).
+     * 
+     * @return the ceiling node of every key, or null where a key has none.
+     */
+    @SuppressWarnings("unchecked")
+    private BSTNode<E>[] getCeilingNodes(E[] keys) {
+        if (keys == null) {
+            throw new NullPointerException();
+        }
+        BSTNode<E>[] ceilings = (BSTNode<E>[]) new BSTNode<?>[keys.length];
+        BSTNode<E> finger = null;
+        for (int i = 0; i < keys.length; i++) {
+            E key = keys[i];
+            if (key == null) {
+                throw new NullPointerException();
+            }
+            if (i > 0) {
+                if (compare(keys[i - 1], key) > 0) {
+                    throw new IllegalArgumentException();
+                }
+                // the keys after one without a ceiling have none either.
+                if (finger == null) {
+                    continue;
+                }
+            }
+            finger = getCeilingNode(finger, key);
+            ceilings[i] = finger;
+        }
+        return ceilings;
+    }
+
+    /**
+     * method that returns the number of element in the tree.
+     * 
+     * @return the number of elements in the tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * removes all the elements from the set.
+     */
+    public void clear() {
+        size = 0;
+        modCount++;
+        hash = 0;
+        root = null;
+
+    }
+
+    /**
+     * checks to see if the given set is empty or not
+     * 
+     * @return true if the set contains no elements.
+     */
+    public boolean isEmpty() {
+        if (size == 0) {
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * method that checks if a given tree is a full tree
+     * 
+     * @return true if this tree is full
+     */
+    public boolean isFull() {
+        // a tree is full if no node has exactly one child, we check every node in
+        // ascending order.
+        if (root == null) {
+            return true;
+        }
+        for (BSTNode<E> node = getFirstNode(root); node != null; node = inorderSuccessor(node)) {
+            if ((node.left == null) != (node.right == null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * method that returns the height of the tree.
+     * 
+     * @return the height of the tree or 0 if the tree is empty.
+     */
+    public int height() {
+        if (root == null) {
+            return 0;
+        }
+        // the AVL heights are already maintained on every node.
+        if (balance == Balance.AVL) {
+            return root.height - 1;
+        }
+        return getHeight(root);
+    }
+
+    /**
+     * method that returns the height of the given subtree by walking it with the
+     * parent links, keeping track of the depth instead of using a stack.
+     * 
+     * @param current- the root node of the subtree.
+     * @return the height
+     */
+    private int getHeight(BSTNode<E> current) {
+        BSTNode<E> stop = current.parent;
+        BSTNode<E> previous = stop;
+        int depth = 0;
+        int height = 0;
+
+        while (current != stop) {
+            BSTNode<E> next;
+            // we came down to this node, visit the left child first.
+            if (previous == current.parent) {
+                height = Math.max(height, depth);
+                next = (current.left != null) ? current.left
+                        : (current.right != null) ? current.right : current.parent;
+            }
+            // we came back from the left child, visit the right child.
+            else if (previous == current.left && current.right != null) {
+                next = current.right;
+            }
+            // both children are done, go back up.
+            else {
+                next = current.parent;
+            }
+
+            if (next == current.parent) {
+                depth--;
+            } else {
+                depth++;
+            }
+            previous = current;
+            current = next;
+        }
+        return height;
+    }
+
+    /**
+     * method that returns the shape of the tree: its height, the average depth of
+     * its nodes and leaves, the number of leaves and how much taller it is than a
+     * perfectly balanced tree. The tree is walked once using the parent links.
+     * 
+     * @return the shape of the tree.
+     */
+    public Stats stats() {
+        long depthSum = 0;
+        long leafDepthSum = 0;
+        int leaves = 0;
+        int height = 0;
+
+        BSTNode<E> current = root;
+        BSTNode<E> previous = null;
+        int depth = 0;
+        while (current != null) {
+            BSTNode<E> next;
+            if (previous == current.parent) {
+                // first visit of the node.
+                depthSum += depth;
+                height = Math.max(height, depth);
+                if (current.left == null && current.right == null) {
+                    leaves++;
+                    leafDepthSum += depth;
+                }
+                next = (current.left != null) ? current.left
+                        : (current.right != null) ? current.right : current.parent;
+            } else if (previous == current.left && current.right != null) {
+                next = current.right;
+            } else {
+                next = current.parent;
+            }
+            depth += (next == current.parent) ? -1 : 1;
+            previous = current;
+            current = next;
+        }
+        return new Stats(size, height, leaves, (size == 0) ? 0 : (double) depthSum / size,
+                (leaves == 0) ? 0 : (double) leafDepthSum / leaves);
+    }
+
+    /**
+     * method that checks the structure of the tree: the parent links, the order of
+     * the elements, the subtree counts and the rules of the balance mode. The tree
+     * is walked once using the parent links. Used by the tests.
+     * 
+     * @throws IllegalStateException at the first rule that is broken.
+     */
+    void checkInvariants() {
+        if (root != null && root.parent != null) {
+            throw new IllegalStateException("root has a parent");
+        }
+        if (balance == Balance.RED_BLACK && root != null && root.red) {
+            throw new IllegalStateException("red root");
+        }
+        int visited = 0;
+        // black nodes from the root down to the current node, and on every path.
+        int blackDepth = 0;
+        int blackHeight = -1;
+        BSTNode<E> last = null;
+
+        BSTNode<E> current = root;
+        BSTNode<E> previous = null;
+        while (current != null) {
+            BSTNode<E> next;
+            boolean inorder = false;
+            if (previous == current.parent) {
+                // first visit of the node.
+                if ((current.left != null && current.left.parent != current)
+                        || (current.right != null && current.right.parent != current)) {
+                    throw new IllegalStateException("broken parent link at " + current.data);
+                }
+                if (balance == Balance.RED_BLACK) {
+                    if (current.red && (isRed(current.left) || isRed(current.right))) {
+                        throw new IllegalStateException("red node with a red child at " + current.data);
+                    }
+                    if (!current.red) {
+                        blackDepth++;
+                    }
+                    // a missing child ends a path, all paths have the same black nodes.
+                    if (current.left == null || current.right == null) {
+                        if (blackHeight < 0) {
+                            blackHeight = blackDepth;
+                        } else if (blackHeight != blackDepth) {
+                            throw new IllegalStateException("unequal black height at " + current.data);
+                        }
+                    }
+                }
+                if (current.left != null) {
+                    next = current.left;
+                } else {
+                    inorder = true;
+                    next = (current.right != null) ? current.right : current.parent;
+                }
+            } else if (previous == current.left) {
+                inorder = true;
+                next = (current.right != null) ? current.right : current.parent;
+            } else {
+                next = current.parent;
+            }
+
+            if (inorder) {
+                if (last != null && compare(last.data, current.data) >= 0) {
+                    throw new IllegalStateException("out of order at " + current.data);
+                }
+                last = current;
+                visited++;
+            }
+            // last visit of the node, its children are already checked.
+            if (next == current.parent) {
+                if (current.count != countOf(current.left) + countOf(current.right) + 1) {
+                    throw new IllegalStateException("wrong count at " + current.data);
+                }
+                if (balance == Balance.AVL) {
+                    int difference = heightOf(current.left) - heightOf(current.right);
+                    if (current.height != Math.max(heightOf(current.left), heightOf(current.right)) + 1
+                            || difference > 1 || difference < -1) {
+                        throw new IllegalStateException("AVL rule broken at " + current.data);
+                    }
+                }
+                if (balance == Balance.RED_BLACK && !current.red) {
+                    blackDepth--;
+                }
+            }
+            previous = current;
+            current = next;
+        }
+        if (visited != size) {
+            throw new IllegalStateException("size is " + size + " but the tree has " + visited + " nodes");
+        }
+    }
+
+    /**
+     * the shape of a tree as returned by stats.
+     */
+    public static final class Stats {
+
+        private final int size;
+        private final int height;
+        private final int leafCount;
+        private final double averageDepth;
+        private final double averageLeafDepth;
+
+        private Stats(int size, int height, int leafCount, double averageDepth, double averageLeafDepth) {
+            this.size = size;
+            this.height = height;
+            this.leafCount = leafCount;
+            this.averageDepth = averageDepth;
+            this.averageLeafDepth = averageLeafDepth;
+        }
+
+        /**
+         * @return the number of elements in the tree.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the height of the tree, the longest path from the root to a leaf,
+         *         or 0 if the tree is empty.
+         */
+        public int height() {
+            return height;
+        }
+
+        /**
+         * @return the number of nodes without children.
+         */
+        public int leafCount() {
+            return leafCount;
+        }
+
+        /**
+         * @return the average length of the path from the root to a node.
+         */
+        public double averageDepth() {
+            return averageDepth;
+        }
+
+        /**
+         * @return the average length of the path from the root to a leaf.
+         */
+        public double averageLeafDepth() {
+            return averageLeafDepth;
+        }
+
+        /**
+         * @return the height divided by the height of a perfectly balanced tree of
+         *         the same size, 1 for a balanced tree and size - 1 for a list.
+         */
+        public double balanceFactor() {
+            int optimal = 31 - Integer.numberOfLeadingZeros(Math.max(size, 1));
+            return (optimal == 0) ? 1 : (double) height / optimal;
+        }
+
+        @Override
+        public String toString() {
+            return "size=" + size + ", height=" + height + ", leaves=" + leafCount + ", averageDepth="
+                    + averageDepth + ", averageLeafDepth=" + averageLeafDepth + ", balanceFactor=" + balanceFactor();
+        }
+
+    }
+
+    /**
+     * method that rebuilds the tree perfectly balanced in place using the
+     * Day-Stout-Warren algorithm. The nodes are first rotated into a chain
+     * leaning to the right and then folded back into a tree with left
+     * rotations, which takes linear time and no memory besides the nodes. The
+     * heights, sizes and colors are then recomputed in one walk.
+     */
+    public void rebalance() {
+        if (root == null) {
+            return;
+        }
+
+        // turn the tree into a chain of right children, tail is the last node of
+        // the chain that has no left child.
+        BSTNode<E> tail = null;
+        BSTNode<E> rest = root;
+        while (rest != null) {
+            if (rest.left == null) {
+                tail = rest;
+                rest = rest.right;
+            } else {
+                BSTNode<E> pivot = rest.left;
+                rest.left = pivot.right;
+                if (pivot.right != null) {
+                    pivot.right.parent = rest;
+                }
+                pivot.right = rest;
+                rest.parent = pivot;
+                pivot.parent = tail;
+                if (tail == null) {
+                    root = pivot;
+                } else {
+                    tail.right = pivot;
+                }
+                rest = pivot;
+            }
+        }
+
+        // fold the chain, the first pass leaves a chain whose length is a power
+        // of two minus one, every later pass halves it.
+        int perfect = (Integer.highestOneBit(size + 1)) - 1;
+        compress(size - perfect);
+        for (int m = perfect / 2; m > 0; m /= 2) {
+            compress(m);
+        }
+
+        // only the nodes on the deepest level can be red, and only if there are
+        // nodes above them.
+        int deepest = log2(size);
+        BSTNode<E> current = root;
+        BSTNode<E> previous = null;
+        int depth = 0;
+        while (current != null) {
+            BSTNode<E> next;
+            if (previous == current.parent) {
+                current.red = (depth == deepest && depth > 0);
+                next = (current.left != null) ? current.left
+                        : (current.right != null) ? current.right : current.parent;
+            } else if (previous == current.left && current.right != null) {
+                next = current.right;
+            } else {
+                next = current.parent;
+            }
+            // both children are done when we go back up.
+            if (next == current.parent) {
+                updateCount(current);
+                updateHeight(current);
+                depth--;
+            } else {
+                depth++;
+            }
+            previous = current;
+            current = next;
+        }
+        modCount++;
+    }
+
+    /**
+     * method that rotates every second node of the right chain starting at the
+     * root to the left, the given number of times.
+     */
+    private void compress(int count) {
+        BSTNode<E> scanner = null;
+        for (int i = 0; i < count; i++) {
+            BSTNode<E> node = (scanner == null) ? root : scanner.right;
+            BSTNode<E> pivot = node.right;
+            node.right = pivot.left;
+            if (pivot.left != null) {
+                pivot.left.parent = node;
+            }
+            pivot.left = node;
+            node.parent = pivot;
+            pivot.parent = scanner;
+            if (scanner == null) {
+                root = pivot;
+            } else {
+                scanner.right = pivot;
+            }
+            scanner = pivot;
+        }
+    }
+
+    /**
+     * method that makes add rebalance an unbalanced tree when it adds a node
+     * deeper than the given factor times log2 of the size.
+     * every rebalance takes linear time, so this suits trees that only become
+     * skewed slowly, a tree that is mostly filled in sorted order should use the
+     * AVL or red-black balancing instead. Balanced trees are never rebalanced.
+     * 
+     * @param factor how much deeper than log2 of the size a node may be, or 0 to
+     *               turn rebalancing off.
+     * @throws IllegalArgumentException if the factor is not 0 and not greater than
+     *                                  1.
+     */
+    public void setAutoRebalance(double factor) {
+        if (factor != 0 && !(factor > 1)) {
+            throw new IllegalArgumentException();
+        }
+        rebalanceFactor = (balance == Balance.NONE) ? factor : 0;
+    }
+
+    // returns log2 of the number rounded down, or 0 for numbers below 2.
+    private static int log2(int n) {
+        return (n < 2) ? 0 : 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+    @Override
+    /**
+     * method that returns an iterator over the elements in this tree in ascending
+     * order
+     * 
+     * @return an iterator over the elements in the set in ascending order.
+     */
+    public Iterator<E> iterator() {
+        // the inorder iterator starts at the left most node.
+        return new InorderIterator();
+    }
+
+    /**
+     * method that returns an iterator over the elements in this tree in order of
+     * preorder traversal.
+     * the iterator only supports remove on a tree that is not balanced, since the
+     * rotations of a balanced tree change the preorder of the remaining elements.
+     * 
+     * @return an iterator over the elements in the tree in order of the preorder
+     *         traversal.
+     */
+    public Iterator<E> preorderIterator() {
+        return new PreorderIterator();
+
+    }
+
+    /**
+     * method that returns an iterator over the element in the tree in order of the
+     * postorder traversal
+     * the iterator only supports remove on a tree that is not balanced, since the
+     * rotations of a balanced tree change the postorder of the remaining elements.
+     * 
+     * @return an iterator over the elements in this tree in order of the postorder
+     *         traversal.
+     */
+
+    public Iterator<E> postorderIterator() {
+        return new PostorderIterator();
+    }
+
+    /**
+     * method that returns a spliterator over the elements in this tree in
+     * ascending order, which is also used by stream and parallelStream.
+     * It splits by index using the subtree sizes, so both halves get exactly half
+     * of the elements and know their exact size, and only finds its first node
+     * when it starts walking.
+     * 
+     * @return a spliterator over the elements in the set in ascending order.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        // the halves made by trySplit belong to the same walk and are not reported.
+        reportIterator();
+        return new TreeSpliterator(0, size, modCount);
+    }
+
+    /**
+     * method that returns a cursor over this tree that starts before the first
+     * element.
+     * 
+     * @return a new cursor over this tree.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * the base class of the inorder, preorder and postorder iterators.
+     * the iterators walk the tree lazily using the parent links of the nodes, so
+     * they only keep the node that is returned next instead of copying the tree
+     * into a list. subclasses decide which node follows a given node.
+     * the iterators are fail fast, modifying the tree other than through the
+     * iterator throws a ConcurrentModificationException on the next call.
+     * every iterator of the tree and of its views is made here, so this is where
+     * the listener is told about it.
+     */
+    private abstract class TreeIterator implements Iterator<E> {
+
+        BSTNode<E> next;
+        BSTNode<E> lastReturned = null;
+        int expectedModCount = modCount;
+
+        TreeIterator(BSTNode<E> first) {
+            reportIterator();
+            next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+
+        }
+
+        @Override
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturned = next;
+            next = successor(next);
+            return lastReturned.data;
+
+        }
+
+        // returns the node that follows the given node in this traversal order.
+        abstract BSTNode<E> successor(BSTNode<E> node);
+
+        // checks that remove is called once after next and removes the last node.
+        void removeLastReturned() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            deleteNode(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+    }
+
+    /*
+     * iterator that traverses the tree in a inorder manner.
+     */
+    private class InorderIterator extends TreeIterator {
+
+        InorderIterator() {
+            super(root == null ? null : getFirstNode(root));
+        }
+
+        @Override
+        BSTNode<E> successor(BSTNode<E> node) {
+            return inorderSuccessor(node);
+        }
+
+        // the next node is never the one that gets unlinked, a node with two children
+        // takes the value of its predecessor which has already been returned.
+        @Override
+        public void remove() {
+            removeLastReturned();
+        }
+
+    }
+
+    /*
+     * iterator that traverses the tree in a preorder manner.
+     */
+    private class PreorderIterator extends TreeIterator {
+
+        PreorderIterator() {
+            super(root);
+        }
+
+        @Override
+        BSTNode<E> successor(BSTNode<E> node) {
+            // go to the left child first then the right child.
+            if (node.left != null) {
+                return node.left;
+            }
+            if (node.right != null) {
+                return node.right;
+            }
+            // otherwise go up until we find a right subtree we have not visited.
+            BSTNode<E> parent = node.parent;
+            while (parent != null && (node == parent.right || parent.right == null)) {
+                node = parent;
+                parent = parent.parent;
+            }
+            return (parent == null) ? null : parent.right;
+        }
+
+        @Override
+        public void remove() {
+            if (balance != Balance.NONE) {
+                throw new UnsupportedOperationException();
+            }
+            // a node with two children takes the value of its predecessor, which has
+            // not been returned yet, so we visit the node again.
+            if (lastReturned != null && lastReturned.left != null && lastReturned.right != null) {
+                next = lastReturned;
+            }
+            removeLastReturned();
+        }
+
+    }
+
+    /*
+     * iterator that traverses the tree in a postorder manner.
+     */
+    private class PostorderIterator extends TreeIterator {
+
+        PostorderIterator() {
+            super(root == null ? null : getFirstPostorderNode(root));
+        }
+
+        @Override
+        BSTNode<E> successor(BSTNode<E> node) {
+            BSTNode<E> parent = node.parent;
+            // coming from the left we still have to visit the right subtree.
+            if (parent != null && node == parent.left && parent.right != null) {
+                return getFirstPostorderNode(parent.right);
+            }
+            return parent;
+        }
+
+        @Override
+        public void remove() {
+            if (balance != Balance.NONE) {
+                throw new UnsupportedOperationException();
+            }
+            removeLastReturned();
+        }
+
+    }
+
+    /*
+     * spliterator over the elements at the indexes from index up to fence.
+     * splitting hands the first half of the indexes to a new spliterator, the
+     * walk itself follows the parent links like the inorder iterator.
+     */
+    private class TreeSpliterator implements Spliterator<E> {
+
+        BSTNode<E> next = null;
+        int index;
+        final int fence;
+        final int expectedModCount;
+
+        TreeSpliterator(int index, int fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (index >= fence) {
+                return false;
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                next = getNodeAt(index);
+            }
+            E data = next.data;
+            next = inorderSuccessor(next);
+            index++;
+            action.accept(data);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (index >= fence) {
+                return;
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            BSTNode<E> node = (next == null) ? getNodeAt(index) : next;
+            for (; index < fence; index++) {
+                action.accept(node.data);
+                node = inorderSuccessor(node);
+            }
+            next = node;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            TreeSpliterator prefix = new TreeSpliterator(index, mid, expectedModCount);
+            prefix.next = next;
+            next = null;
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.SIZED
+                    | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comparator;
+        }
+
+    }
+
+    /**
+     * a position in the tree that remembers the node it is at, so lookups near
+     * the last one are cheap.
+     * seek and seekForward search from the current node instead of the root and
+     * cost about the log of the distance moved, next and prev step to the
+     * neighbouring element. A cursor that is not at an element is before the
+     * first or after the last element.
+     * changing the tree other than through the cursor makes next, prev and
+     * seekForward throw a ConcurrentModificationException, seek can always be used
+     * to place the cursor again.
+     */
+    public class Cursor {
+
+        private BSTNode<E> node = null;
+        // where the cursor is when it is not at an element.
+        private boolean afterLast = false;
+        private int expectedModCount = modCount;
+
+        private Cursor() {
+        }
+
+        /**
+         * method that moves the cursor to the least element greater than or equal
+         * to the given element.
+         * 
+         * @param e - the value we want to match.
+         * @throws NullPointerException - if the specified element is null.
+         * @return the element the cursor is now at, or null if there is no such
+         *         element and the cursor is after the last element.
+         */
+        public E seek(E e) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            // after a change to the tree the old node may be gone, so search from the root.
+            BSTNode<E> start = (modCount == expectedModCount) ? node : null;
+            expectedModCount = modCount;
+            return moveTo(getCeilingNode(start, e));
+        }
+
+        /**
+         * method that moves the cursor forward to the least element greater than or
+         * equal to the given element, the cursor does not move if it is already at
+         * such an element.
+         * 
+         * @param e - the value we want to match.
+         * @throws NullPointerException            - if the specified element is null.
+         * @throws ConcurrentModificationException - if the tree was changed.
+         * @return the element the cursor is now at, or null if the cursor is after
+         *         the last element.
+         */
+        public E seekForward(E e) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            checkForComodification();
+            if (node == null) {
+                return afterLast ? null : seek(e);
+            }
+            if (compare(e, node.data) <= 0) {
+                return node.data;
+            }
+            return moveTo(getCeilingNode(node, e));
+        }
+
+        /**
+         * method that moves the cursor to the next element, or to the first one if
+         * the cursor is before the first element.
+         * 
+         * @throws ConcurrentModificationException - if the tree was changed.
+         * @return the element the cursor is now at, or null if it moved after the
+         *         last element.
+         */
+        public E next() {
+            checkForComodification();
+            if (node == null) {
+                return afterLast ? null : moveTo(root == null ? null : getFirstNode(root));
+            }
+            return moveTo(inorderSuccessor(node));
+        }
+
+        /**
+         * method that moves the cursor to the previous element, or to the last one
+         * if the cursor is after the last element.
+         * 
+         * @throws ConcurrentModificationException - if the tree was changed.
+         * @return the element the cursor is now at, or null if it moved before the
+         *         first element.
+         */
+        public E prev() {
+            checkForComodification();
+            if (node == null) {
+                if (!afterLast || root == null) {
+                    afterLast = false;
+                    return null;
+                }
+                return moveTo(getLastNode(root));
+            }
+            node = inorderPredecessor(node);
+            afterLast = false;
+            return (node == null) ? null : node.data;
+        }
+
+        /**
+         * method that returns the element the cursor is at.
+         * 
+         * @throws ConcurrentModificationException - if the tree was changed.
+         * @return the element or null if the cursor is not at an element.
+         */
+        public E get() {
+            checkForComodification();
+            return (node == null) ? null : node.data;
+        }
+
+        // moves the cursor to the node, or after the last element for null.
+        private E moveTo(BSTNode<E> target) {
+            node = target;
+            afterLast = (target == null);
+            return (target == null) ? null : target.data;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+    }
+
+    /**
+     * method that returns the node holding the left most element of the given
+     * subtree.
+     */
+    private BSTNode<E> getFirstNode(BSTNode<E> current) {
+        BSTNode<E> node = current;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    /**
+     * method that returns the node of the given subtree that comes first in
+     * postorder, the deepest node reached by preferring left children.
+     */
+    private BSTNode<E> getFirstPostorderNode(BSTNode<E> current) {
+        BSTNode<E> node = current;
+        while (node.left != null || node.right != null) {
+            node = (node.left != null) ? node.left : node.right;
+        }
+        return node;
+    }
+
+    /**
+     * method that returns the node that follows the given node in ascending order.
+     * 
+     * @param node we are currently at.
+     * @return the next node or null if the given node holds the last element.
+     */
+    private BSTNode<E> inorderSuccessor(BSTNode<E> node) {
+        // the next element is the lowest element of the right subtree.
+        if (node.right != null) {
+            return getFirstNode(node.right);
+        }
+        // otherwise it is the first parent we reach from its left subtree.
+        BSTNode<E> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /**
+     * method that returns the element at the specified position on the tree
+     * 
+     * @param index of the element to return
+     * @throws IndexOutOfBoundsException - if the index < 0 || index >= size()
+     * @return the elements at the specified position of the tree.
+     */
+    public E get(int index) {
+
+        if (index < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (index >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return getNodeAt(index).data;
+
+    }
+
+    // returns the node at the given index in ascending order, the index must be
+    // in range.
+    private BSTNode<E> getNodeAt(int index) {
+        // use the subtree sizes to decide which subtree holds the index.
+        BSTNode<E> current = root;
+        while (true) {
+            int leftCount = countOf(current.left);
+            if (index < leftCount) {
+                current = current.left;
+            } else if (index == leftCount) {
+                return current;
+            } else {
+                // skip the left subtree and the current node.
+                index -= leftCount + 1;
+                current = current.right;
+            }
+        }
+    }
+
+    /**
+     * method that returns the number of elements in the tree that are strictly
+     * less than the given element. The element does not have to be in the tree.
+     * 
+     * @param e - the element to rank.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified element cannot be compared
+     *                              with the elements currently in the set.
+     * @return the number of elements less than e.
+     */
+    public int rank(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        return countBelow(e, false);
+    }
+
+    /**
+     * method that returns the position of the given element in the ascending
+     * order of the tree, so that get(indexOf(e)) returns e.
+     * 
+     * @param e - the element to look for.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified element cannot be compared
+     *                              with the elements currently in the set.
+     * @return the index of the element or -1 if it is not in the tree.
+     */
+    public int indexOf(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int index = 0;
+        BSTNode<E> current = root;
+        while (current != null) {
+            int cmp = compare(e, current.data);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                // every element of the left subtree and the current node come before e.
+                index += countOf(current.left) + 1;
+                current = current.right;
+            } else {
+                return index + countOf(current.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * method that returns the number of elements in the range of fromElement to
+     * toElement both being inclusive, without visiting the elements in between.
+     * 
+     * @param fromElement - low endpoint (inclusive) of the range.
+     * @param toElement-  high endpoint (inclusive) of the range.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return the number of elements between fromElement and toElement.
+     */
+    public int countInRange(E fromElement, E toElement) {
+        if (fromElement == null || toElement == null) {
+            throw new NullPointerException();
+        }
+
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return countBelow(toElement, true) - countBelow(fromElement, false);
+    }
+
+    /**
+     * method that counts the elements less than, or less than or equal to, the
+     * given element by descending a single path of the tree.
+     * 
+     * @param e         the bound we are counting up to.
+     * @param inclusive whether an element equal to e is counted.
+     * @return the number of elements below the bound.
+     */
+    private int countBelow(E e, boolean inclusive) {
+        int counter = 0;
+        BSTNode<E> current = root;
+        while (current != null) {
+            int cmp = compare(e, current.data);
+            if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                current = current.left;
+            } else {
+                // the left subtree and the current node are below the bound.
+                counter += countOf(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * method that returns a collection whose elements are in the range of
+     * fromElement to toElement both being inclusive.
+     * the elements are collected in ascending order while walking only the part
+     * of the tree inside the range, so no sorting is needed.
+     * 
+     * @param fromElement - low endpoint (inclusive of the returned collection.
+     * @param toElement-  high endpoint (inclusive) of the returned collection.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return returns a collection containing a portion of the tree whose elements
+     *         range fromElement to toElement inclusive
+     */
+    public ArrayList<E> getRange(E fromElement, E toElement) {
+        long start = startOperation();
+        long compared = comparisonsSoFar(start);
+        // the subtree sizes tell us exactly how much room the list needs.
+        ArrayList<E> range = new ArrayList<E>(countInRange(fromElement, toElement));
+        forEachInRange(fromElement, toElement, range::add);
+        endOperation(BSTListener.Operation.RANGE, start, compared);
+        return range;
+
+    }
+
+    /**
+     * method that performs the given action for every element in the range of
+     * fromElement to toElement both being inclusive, in ascending order, without
+     * collecting the elements first.
+     * 
+     * @param fromElement - low endpoint (inclusive) of the range.
+     * @param toElement-  high endpoint (inclusive) of the range.
+     * @param action      - the action to be performed for each element.
+     * @throws NullPointerException     - if fromElement, toElement or action is
+     *                                  null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     */
+    public void forEachInRange(E fromElement, E toElement, Consumer<? super E> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        Iterator<E> x = rangeIterator(fromElement, toElement);
+        while (x.hasNext()) {
+            action.accept(x.next());
+        }
+    }
+
+    /**
+     * method that returns an iterator over the elements in the range of
+     * fromElement to toElement both being inclusive, in ascending order.
+     * the iterator starts at the ceiling of fromElement in O(log n) and stops at
+     * the first element greater than toElement. It supports remove.
+     * 
+     * @param fromElement - low endpoint (inclusive) of the range.
+     * @param toElement-  high endpoint (inclusive) of the range.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return an iterator over the elements in the range.
+     */
+    public Iterator<E> rangeIterator(E fromElement, E toElement) {
+        if (fromElement == null || toElement == null) {
+            throw new NullPointerException();
+        }
+
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return subSet(fromElement, true, toElement, true).iterator();
+    }
+
+    /**
+     * method that removes the elements in the range of fromElement to toElement
+     * both being inclusive.
+     * the number of elements in the range is counted first. A few of them are
+     * removed one at a time starting at the ceiling of fromElement, when there
+     * are many the elements outside the range are copied and the tree is rebuilt
+     * in one pass, which is cheaper than removing them one by one.
+     * 
+     * @param fromElement - low endpoint (inclusive) of the range.
+     * @param toElement-  high endpoint (inclusive) of the range.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return the number of elements removed.
+     */
+    public int removeRange(E fromElement, E toElement) {
+        int count = countInRange(fromElement, toElement);
+        if (count == 0) {
+            return 0;
+        }
+
+        if (!isLargeBatch(count)) {
+            Iterator<E> x = rangeIterator(fromElement, toElement);
+            while (x.hasNext()) {
+                x.next();
+                x.remove();
+            }
+            return count;
+        }
+
+        // copy the elements before the range and after it.
+        Object[] kept = new Object[size - count];
+        int n = 0;
+        BSTNode<E> first = getCeilingNode(fromElement);
+        for (BSTNode<E> node = getFirstNode(root); node != first; node = inorderSuccessor(node)) {
+            kept[n++] = node.data;
+        }
+        for (BSTNode<E> node = getHigherNode(toElement); node != null; node = inorderSuccessor(node)) {
+            kept[n++] = node.data;
+        }
+        buildFromSorted(kept, n);
+        return count;
+    }
+
+    /**
+     * Removes all of the elements of this tree that satisfy the given predicate.
+     * the matching elements are collected in one pass first, so the tree is left
+     * unchanged if the predicate throws. A few matches are removed one at a time,
+     * many are removed by copying the kept elements and rebuilding the tree once,
+     * like removeRange.
+     * 
+     * @param filter - a predicate which returns true for elements to be removed.
+     * @throws NullPointerException            - if the filter is null.
+     * @throws ConcurrentModificationException - if the filter changes the tree.
+     * @return true if any elements were removed.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        if (filter == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            return false;
+        }
+        int expectedModCount = modCount;
+        // the matching elements in ascending order.
+        ArrayList<E> removed = new ArrayList<E>();
+        for (BSTNode<E> node = getFirstNode(root); node != null; node = inorderSuccessor(node)) {
+            if (filter.test(node.data)) {
+                removed.add(node.data);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        int count = removed.size();
+        if (count == 0) {
+            return false;
+        }
+
+        if (!isLargeBatch(count)) {
+            for (E e : removed) {
+                deleteNode(getNode(e));
+            }
+            return true;
+        }
+
+        // copy the elements that are not the next removed one.
+        Object[] kept = new Object[size - count];
+        int n = 0;
+        int next = 0;
+        for (BSTNode<E> node = getFirstNode(root); node != null; node = inorderSuccessor(node)) {
+            if (next < count && node.data == removed.get(next)) {
+                next++;
+            } else {
+                kept[n++] = node.data;
+            }
+        }
+        buildFromSorted(kept, n);
+        return true;
+    }
+
+    /**
+     * method that returns the least element in this tree greater than or equal to
+     * the given element. Or null if the element does not exist.
+     * 
+     * @param e - the value that we want to match.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified element is unable to be
+     *                              compared with the elements currently in the set
+     * @return the least element that is greater than or equal, or null if there is
+     *         no such element.
+     */
+    public E ceiling(E e) {
+
+        // if element is null;
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        try {
+            // call the helper method to find the node holding the value we want.
+            long start = startOperation();
+            long compared = comparisonsSoFar(start);
+            BSTNode<E> current = getCeilingNode(e);
+            endOperation(BSTListener.Operation.CEILING, start, compared);
+            // if no value exist that can math the parameters we return null.
+            if (current == null) {
+                return null;
+            }
+            // return the value;
+            return current.data;
+
+        } catch (ClassCastException o) {
+            throw new ClassCastException();
+        }
+
+    }
+
+    /**
+     * method that helps us find the node that matches the specifications for the
+     * ceiling method, the least node greater than or equal to e.
+     * 
+     * @param e the value we want to match.
+     * @return the node that matches the ceilings specifications or null.
+     */
+    private BSTNode<E> getCeilingNode(E e) {
+        BSTNode<E> current = root;
+        BSTNode<E> best = null;
+        while (current != null) {
+            int cmp = compare(e, current.data);
+            // if the value we are looking for is equal to the data we can return the node.
+            if (cmp == 0) {
+                return current;
+            }
+            // if the node is bigger than the value it is a candidate, look for a smaller
+            // one in the left subtree.
+            if (cmp < 0) {
+                best = current;
+                current = current.left;
+            }
+            // else we go to the right subtree.
+            else {
+                current = current.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * method that returns the least node greater than or equal to the given
+     * element, starting the search at the finger node instead of the root.
+     * it climbs from the finger only until it reaches a subtree whose range holds
+     * the element and then descends again, so the cost grows with the log of the
+     * distance to the finger rather than the log of the size.
+     * 
+     * @param finger a node of the tree, or null to start at the root.
+     * @param e      the value we want to match.
+     * @return the ceiling node or null if there is no such element.
+     */
+    private BSTNode<E> getCeilingNode(BSTNode<E> finger, E e) {
+        if (finger == null) {
+            return getCeilingNode(e);
+        }
+        int cmp = compare(e, finger.data);
+        if (cmp == 0) {
+            return finger;
+        }
+        BSTNode<E> node = finger;
+        BSTNode<E> best = null;
+        if (cmp > 0) {
+            // every element of a left child is less than its parent, so stop at the
+            // first left child whose parent is greater than the element.
+            while (node.parent != null) {
+                if (node == node.parent.left && compare(e, node.parent.data) < 0) {
+                    best = node.parent;
+                    break;
+                }
+                node = node.parent;
+            }
+        } else {
+            // and every element of a right child is greater than its parent.
+            while (node.parent != null && !(node == node.parent.right && compare(e, node.parent.data) > 0)) {
+                node = node.parent;
+            }
+        }
+
+        while (node != null) {
+            cmp = compare(e, node.data);
+            if (cmp == 0) {
+                return node;
+            }
+            if (cmp < 0) {
+                best = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * method that returns the greatest element in this set less than or equal to
+     * the given element or null if no such element exist.
+     * 
+     * @param e- the value we want to match.
+     * @throws ClassCastException   - if the specified element cannot be compared
+     *                              with the elements currently in the set.
+     * @throws NullPointerException - if the specified element is null.
+     * @return the greatest element less than or equal to the parameter, or null if
+     *         no such element exist.
+     */
+    public E floor(E e) {
+        // if element is null;
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        try {
+            // call the helper method to find the node holding the value we want.
+            long start = startOperation();
+            long compared = comparisonsSoFar(start);
+            BSTNode<E> current = getFloorNode(e);
+            endOperation(BSTListener.Operation.FLOOR, start, compared);
+            // if no value exist that can math the parameters we return null.
+            if (current == null) {
+                return null;
+            }
+            // return the value;
+            return current.data;
+
+        } catch (ClassCastException o) {
+            throw new ClassCastException();
+        }
+
+    }
+
+    /**
+     * method that helps us find the node that matches the specifications for the
+     * floor method, the greatest node less than or equal to e.
+     * 
+     * @param e the value we want to match.
+     * @return the node that matches the floors specifications or null.
+     */
+    private BSTNode<E> getFloorNode(E e) {
+        BSTNode<E> current = root;
+        BSTNode<E> best = null;
+        while (current != null) {
+            int cmp = compare(e, current.data);
+            // if the value we are looking for is equal to the data we can return the node.
+            if (cmp == 0) {
+                return current;
+            }
+            // if the node is less than the value it is a candidate, look for a bigger one
+            // in the right subtree.
+            if (cmp > 0) {
+                best = current;
+                current = current.right;
+            }
+            // else we go to the left subtree.
+            else {
+                current = current.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * method that returns the first/lowest element currently in the tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the first (lowest) element currently in the tree.
+     */
+    public E first() {
+
+        // if tree is empty we throw NoSuchElementException();
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        // the lowest element is the left most node.
+        return getFirstNode(root).data;
+
+    }
+
+    /**
+     * method that returns the last/highest element in this tree.
+     * 
+     * @return the last/highest element currently in the tree.
+     * @throws NoSuchElementException - if this set is empty.
+     */
+    public E last() {
+        // if tree is empty we throw NoSuchElementException();
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        // the highest element is the right most node.
+        return getLastNode(root).data;
+
+    }
+
+    /**
+     * method that returns the greatest element in this set that is strictly less
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified element cannot be compared
+     *                              with the elements currently in the set.
+     * @return the greatest element less than e or null if there is no such element.
+     */
+    public E lower(E e) {
+        // if element is null
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        try {
+            // call the helper method to find the node holding the value we want.
+            long start = startOperation();
+            long compared = comparisonsSoFar(start);
+            BSTNode<E> current = getLowerNode(e);
+            endOperation(BSTListener.Operation.LOWER, start, compared);
+            // if no value exist that can match the parameters we return null.
+            if (current == null) {
+                return null;
+            }
+            // return the value.
+            return current.data;
+
+        } catch (ClassCastException o) {
+            throw new ClassCastException();
+        }
+
+    }
+
+    /**
+     * method that helps find the node that matches lower specifications, the
+     * greatest node strictly less than e.
+     * 
+     * @param e - object we used to find current
+     * @return the node that matches the lower specifications or null.
+     */
+    private BSTNode<E> getLowerNode(E e) {
+        BSTNode<E> current = root;
+        BSTNode<E> best = null;
+        while (current != null) {
+            // if the node is less than the value it is a candidate, look for a bigger one
+            // in the right subtree.
+            if (compare(e, current.data) > 0) {
+                best = current;
+                current = current.right;
+            }
+            // else we go to the left subtree.
+            else {
+                current = current.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * method that returns the least element in this set that is strictly greater
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified element cannot be compared
+     *                              with the elements currently in the set.
+     * @return the least element greater than e or null if there is no such element.
+     */
+    public E higher(E e) {
+        // if element is null
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        try {
+            // call the helper method to find the node holding the value we want.
+            long start = startOperation();
+            long compared = comparisonsSoFar(start);
+            BSTNode<E> current = getHigherNode(e);
+            endOperation(BSTListener.Operation.HIGHER, start, compared);
+            // if no value exist that can match the parameters we return null.
+            if (current == null) {
+                return null;
+            }
+            // return value/
+            return current.data;
+
+        } catch (ClassCastException o) {
+            throw new ClassCastException();
+        }
+
+    }
+
+    /**
+     * method that helps us find the node that matches higher specification, the
+     * least node strictly greater than e.
+     * 
+     * @param e value we want to match.
+     * @return the node that matches the higher specifications or null.
+     */
+    private BSTNode<E> getHigherNode(E e) {
+        BSTNode<E> current = root;
+        BSTNode<E> best = null;
+        while (current != null) {
+            // if the node is bigger than the value it is a candidate, look for a smaller
+            // one in the left subtree.
+            if (compare(e, current.data) < 0) {
+                best = current;
+                current = current.left;
+            }
+            // else go to right subtree
+            else {
+                current = current.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * method that returns the comparator used to order the elements in this tree.
+     * 
+     * @return the comparator or null if the tree uses the natural ordering of its
+     *         elements.
+     */
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * method that retrieves and removes the first/lowest element.
+     * 
+     * @return the first element or null if this tree is empty.
+     */
+    @Override
+    public E pollFirst() {
+        if (root == null) {
+            return null;
+        }
+        BSTNode<E> node = getFirstNode(root);
+        E data = node.data;
+        deleteNode(node);
+        return data;
+    }
+
+    /**
+     * method that retrieves and removes the last/highest element.
+     * 
+     * @return the last element or null if this tree is empty.
+     */
+    @Override
+    public E pollLast() {
+        if (root == null) {
+            return null;
+        }
+        BSTNode<E> node = getLastNode(root);
+        E data = node.data;
+        deleteNode(node);
+        return data;
+    }
+
+    /**
+     * method that returns an iterator over the elements in this tree in
+     * descending order. Like the ascending iterator it walks the tree lazily.
+     * 
+     * @return an iterator over the elements in the set in descending order.
+     */
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new ViewIterator(root == null ? null : getLastNode(root), false, null);
+    }
+
+    /**
+     * method that returns a reverse order view of the elements in this tree.
+     * The view is backed by the tree, so changes to either are visible in both.
+     * 
+     * @return a reverse order view of this tree.
+     */
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return new SubSet(true, null, false, true, null, false, true);
+    }
+
+    /**
+     * method that returns a view of the portion of this tree whose elements range
+     * from fromElement to toElement. The view is backed by the tree and only
+     * accepts elements inside its range.
+     * 
+     * @param fromElement   - low endpoint of the returned set.
+     * @param fromInclusive - true if the low endpoint is to be included.
+     * @param toElement     - high endpoint of the returned set.
+     * @param toInclusive   - true if the high endpoint is to be included.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return a view of the portion of this tree in the range.
+     */
+    @Override
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        if (fromElement == null || toElement == null) {
+            throw new NullPointerException();
+        }
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return new SubSet(false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+    }
+
+    /**
+     * method that returns a view of the portion of this tree whose elements are
+     * less than (or equal to, if inclusive is true) toElement.
+     * 
+     * @param toElement - high endpoint of the returned set.
+     * @param inclusive - true if the high endpoint is to be included.
+     * @throws NullPointerException - if toElement is null.
+     * @return a view of the portion of this tree below toElement.
+     */
+    @Override
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        if (toElement == null) {
+            throw new NullPointerException();
+        }
+        return new SubSet(true, null, false, false, toElement, inclusive, false);
+    }
+
+    /**
+     * method that returns a view of the portion of this tree whose elements are
+     * greater than (or equal to, if inclusive is true) fromElement.
+     * 
+     * @param fromElement - low endpoint of the returned set.
+     * @param inclusive   - true if the low endpoint is to be included.
+     * @throws NullPointerException - if fromElement is null.
+     * @return a view of the portion of this tree above fromElement.
+     */
+    @Override
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        if (fromElement == null) {
+            throw new NullPointerException();
+        }
+        return new SubSet(false, fromElement, inclusive, true, null, false, false);
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * method that sets the listener that is told about every add, remove,
+     * contains, ceiling, floor, lower, higher, getRange and iterator call with
+     * its time and number of comparisons. Without a listener the tree does not
+     * read the clock or count anything.
+     * 
+     * @param listener the listener, or null to stop measuring.
+     */
+    public void setListener(BSTListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * method that returns the listener of the tree.
+     * 
+     * @return the listener or null if the tree is not measured.
+     */
+    public BSTListener getListener() {
+        return listener;
+    }
+
+    // returns the time an operation starts, or 0 when there is no listener.
+    private long startOperation() {
+        return (listener == null) ? 0 : System.nanoTime();
+    }
+
+    // returns the comparisons made so far by the calling thread for an operation
+    // that started at the given time, or 0 when it is not measured.
+    private static long comparisonsSoFar(long start) {
+        return (start == 0) ? 0 : COMPARISONS.get()[0];
+    }
+
+    // tells the listener that an iterator or a spliterator over the tree was made.
+    private void reportIterator() {
+        BSTListener current = listener;
+        if (current != null) {
+            current.operationCompleted(BSTListener.Operation.ITERATOR, 0, 0);
+        }
+    }
+
+    // tells the listener about an operation that started at the given time with
+    // the given number of comparisons made before it on the same thread.
+    private void endOperation(BSTListener.Operation operation, long start, long compared) {
+        BSTListener current = listener;
+        if (current != null && start != 0) {
+            long comparisons = COMPARISONS.get()[0] - compared;
+            current.operationCompleted(operation, System.nanoTime() - start, (int) comparisons);
+        }
+    }
+
+    /**
+     * method that compares two elements using the comparator of the tree, or their
+     * natural ordering if the tree has no comparator. Every lookup and update goes
+     * through this method exactly once per node it visits.
+     * 
+     * @throws ClassCastException if the elements cannot be compared.
+     */
+    private int compare(Object a, Object b) {
+        if (listener != null) {
+            COMPARISONS.get()[0]++;
+        }
+        return compare(comparator, a, b);
+    }
+
+    // compares two elements with the given comparator, or their natural ordering
+    // if it is null, without counting the comparison.
+    @SuppressWarnings("unchecked")
+    private static int compare(Comparator<?> comparator, Object a, Object b) {
+        if (comparator == null) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return ((Comparator<Object>) comparator).compare(a, b);
+    }
+
+    /**
+     * method that returns the node that comes before the given node in ascending
+     * order.
+     * 
+     * @param node we are currently at.
+     * @return the previous node or null if the given node holds the first element.
+     */
+    private BSTNode<E> inorderPredecessor(BSTNode<E> node) {
+        // the previous element is the highest element of the left subtree.
+        if (node.left != null) {
+            return getLastNode(node.left);
+        }
+        // otherwise it is the first parent we reach from its right subtree.
+        BSTNode<E> parent = node.parent;
+        while (parent != null && node == parent.left) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /*
+     * iterator used by the views and the descending iterator, it walks the tree in
+     * ascending or descending order and stops at the bounds of its view.
+     */
+    private class ViewIterator extends TreeIterator {
+
+        private final boolean ascending;
+        // the view whose bounds we stop at, or null to walk the whole tree.
+        private final SubSet view;
+
+        ViewIterator(BSTNode<E> first, boolean ascending, SubSet view) {
+            super(first);
+            this.ascending = ascending;
+            this.view = view;
+        }
+
+        @Override
+        BSTNode<E> successor(BSTNode<E> node) {
+            BSTNode<E> following = ascending ? inorderSuccessor(node) : inorderPredecessor(node);
+            if (following != null && view != null
+                    && (ascending ? view.tooHigh(following.data) : view.tooLow(following.data))) {
+                return null;
+            }
+            return following;
+        }
+
+        @Override
+        public void remove() {
+            // going down, a node with two children takes the value of its predecessor,
+            // which is the node we would return next, so we visit the node again.
+            if (!ascending && next != null && lastReturned != null && lastReturned.left != null
+                    && lastReturned.right != null) {
+                next = lastReturned;
+            }
+            removeLastReturned();
+        }
+
+    }
+
+    /**
+     * the class represents a view of the elements of the tree between two bounds,
+     * in ascending or descending order. Nothing is copied, every method works on
+     * the tree itself and only looks at the part of the tree inside the bounds.
+     * the bounds are always kept in the ascending order of the tree, lo being the
+     * low bound and hi the high bound.
+     */
+    private class SubSet extends AbstractSet<E> implements NavigableSet<E> {
+
+        private final boolean fromStart;
+        private final E lo;
+        private final boolean loInclusive;
+        private final boolean toEnd;
+        private final E hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+
+        SubSet(boolean fromStart, E lo, boolean loInclusive, boolean toEnd, E hi, boolean hiInclusive,
+                boolean descending) {
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        // returns true if the element is below the low bound.
+        private boolean tooLow(Object e) {
+            if (fromStart) {
+                return false;
+            }
+            int cmp = compare(e, lo);
+            return cmp < 0 || (cmp == 0 && !loInclusive);
+        }
+
+        // returns true if the element is above the high bound.
+        private boolean tooHigh(Object e) {
+            if (toEnd) {
+                return false;
+            }
+            int cmp = compare(e, hi);
+            return cmp > 0 || (cmp == 0 && !hiInclusive);
+        }
+
+        // returns true if the element is inside the bounds.
+        private boolean inRange(Object e) {
+            return !tooLow(e) && !tooHigh(e);
+        }
+
+        // returns true if the element may be used as a bound of a view of this view.
+        private boolean inRange(E e, boolean inclusive) {
+            if (inclusive) {
+                return inRange(e);
+            }
+            return (fromStart || compare(e, lo) >= 0) && (toEnd || compare(e, hi) <= 0);
+        }
+
+        // the lowest node inside the bounds or null.
+        private BSTNode<E> lowestNode() {
+            BSTNode<E> node;
+            if (fromStart) {
+                node = (root == null) ? null : getFirstNode(root);
+            } else {
+                node = loInclusive ? getCeilingNode(lo) : getHigherNode(lo);
+            }
+            return (node == null || tooHigh(node.data)) ? null : node;
+        }
+
+        // the highest node inside the bounds or null.
+        private BSTNode<E> highestNode() {
+            BSTNode<E> node;
+            if (toEnd) {
+                node = (root == null) ? null : getLastNode(root);
+            } else {
+                node = hiInclusive ? getFloorNode(hi) : getLowerNode(hi);
+            }
+            return (node == null || tooLow(node.data)) ? null : node;
+        }
+
+        // the least node greater than or equal to e inside the bounds, or with
+        // inclusive false the least node strictly greater than e.
+        private BSTNode<E> ceilingNode(E e, boolean inclusive) {
+            if (tooLow(e)) {
+                return lowestNode();
+            }
+            BSTNode<E> node = inclusive ? getCeilingNode(e) : getHigherNode(e);
+            return (node == null || tooHigh(node.data)) ? null : node;
+        }
+
+        // the greatest node less than or equal to e inside the bounds, or with
+        // inclusive false the greatest node strictly less than e.
+        private BSTNode<E> floorNode(E e, boolean inclusive) {
+            if (tooHigh(e)) {
+                return highestNode();
+            }
+            BSTNode<E> node = inclusive ? getFloorNode(e) : getLowerNode(e);
+            return (node == null || tooLow(node.data)) ? null : node;
+        }
+
+        // returns the element of the node or null if there is no node.
+        private E dataOf(BSTNode<E> node) {
+            return (node == null) ? null : node.data;
+        }
+
+        // removes the node and returns its element, or returns null if there is no
+        // node.
+        private E poll(BSTNode<E> node) {
+            if (node == null) {
+                return null;
+            }
+            E data = node.data;
+            deleteNode(node);
+            return data;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new ViewIterator(descending ? highestNode() : lowestNode(), !descending, this);
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return new ViewIterator(descending ? lowestNode() : highestNode(), descending, this);
+        }
+
+        // counts the elements inside the bounds using the subtree sizes.
+        @Override
+        public int size() {
+            int below = fromStart ? 0 : countBelow(lo, !loInclusive);
+            int upTo = toEnd ? size : countBelow(hi, hiInclusive);
+            return Math.max(0, upTo - below);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return lowestNode() == null;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return inRange(o) && BST.this.contains(o);
+        }
+
+        @Override
+        public boolean add(E e) {
+            if (!inRange(e)) {
+                throw new IllegalArgumentException();
+            }
+            return BST.this.add(e);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return inRange(o) && BST.this.remove(o);
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return descending ? Collections.reverseOrder(BST.this.comparator()) : BST.this.comparator();
+        }
+
+        @Override
+        public E first() {
+            BSTNode<E> node = descending ? highestNode() : lowestNode();
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            return node.data;
+        }
+
+        @Override
+        public E last() {
+            BSTNode<E> node = descending ? lowestNode() : highestNode();
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            return node.data;
+        }
+
+        @Override
+        public E lower(E e) {
+            return dataOf(descending ? ceilingNode(e, false) : floorNode(e, false));
+        }
+
+        @Override
+        public E floor(E e) {
+            return dataOf(descending ? ceilingNode(e, true) : floorNode(e, true));
+        }
+
+        @Override
+        public E ceiling(E e) {
+            return dataOf(descending ? floorNode(e, true) : ceilingNode(e, true));
+        }
+
+        @Override
+        public E higher(E e) {
+            return dataOf(descending ? floorNode(e, false) : ceilingNode(e, false));
+        }
+
+        @Override
+        public E pollFirst() {
+            return poll(descending ? highestNode() : lowestNode());
+        }
+
+        @Override
+        public E pollLast() {
+            return poll(descending ? lowestNode() : highestNode());
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new SubSet(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            if (fromElement == null || toElement == null) {
+                throw new NullPointerException();
+            }
+            // in a descending view the from element is the high bound.
+            if (descending) {
+                return bounded(toElement, toInclusive, fromElement, fromInclusive);
+            }
+            return bounded(fromElement, fromInclusive, toElement, toInclusive);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            if (toElement == null) {
+                throw new NullPointerException();
+            }
+            if (!inRange(toElement, inclusive)) {
+                throw new IllegalArgumentException();
+            }
+            if (descending) {
+                return new SubSet(false, toElement, inclusive, toEnd, hi, hiInclusive, true);
+            }
+            return new SubSet(fromStart, lo, loInclusive, false, toElement, inclusive, false);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            if (fromElement == null) {
+                throw new NullPointerException();
+            }
+            if (!inRange(fromElement, inclusive)) {
+                throw new IllegalArgumentException();
+            }
+            if (descending) {
+                return new SubSet(fromStart, lo, loInclusive, false, fromElement, inclusive, true);
+            }
+            return new SubSet(false, fromElement, inclusive, toEnd, hi, hiInclusive, false);
+        }
+
+        // returns a view of this view between the low and high bound.
+        private NavigableSet<E> bounded(E low, boolean lowInclusive, E high, boolean highInclusive) {
+            if (compare(low, high) > 0) {
+                throw new IllegalArgumentException();
+            }
+            if (!inRange(low, lowInclusive) || !inRange(high, highInclusive)) {
+                throw new IllegalArgumentException();
+            }
+            return new SubSet(false, low, lowInclusive, false, high, highInclusive, descending);
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+    }
+
+    /**
+     * method that compares the specified object with the tree for equality return
+     * true if the given object is also a set with the same elements.
+     * two trees with the same ordering are walked in lockstep and the walk stops
+     * at the first element that differs. Trees whose hash codes are both known
+     * and differ are told apart without looking at the elements.
+     * 
+     * @param obj - object to be compared for equality with this tree.
+     * @return true if the specified object is equal to the tree.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+
+        // if the given object is not a instance of a BST we compare it as a set.
+        if (!(obj instanceof BST)) {
+            return (obj instanceof Set) && super.equals(obj);
+        }
+        // the elements are only compared with equals so the cast is safe.
+        @SuppressWarnings("unchecked")
+        BST<E> x = (BST<E>) obj;
+        // trees ordered differently can not be compared in lockstep.
+        if (!Objects.equals(comparator, x.comparator)) {
+            return super.equals(obj);
+        }
+        if (size != x.size) {
+            return false;
+        }
+        // equal sets always have equal hash codes.
+        if (hashValid && x.hashValid && hash != x.hash) {
+            return false;
+        }
+
+        BSTNode<E> node1 = (root == null) ? null : getFirstNode(root);
+        BSTNode<E> node2 = (x.root == null) ? null : getFirstNode(x.root);
+        while (node1 != null) {
+            if (!node1.data.equals(node2.data)) {
+                return false;
+            }
+            node1 = inorderSuccessor(node1);
+            node2 = inorderSuccessor(node2);
+        }
+        return true;
+
+    }
+
+    /**
+     * method that returns the hash code of the tree, the sum of the hash codes of
+     * its elements as defined by Set.hashCode.
+     * the sum is computed once and from then on kept up to date by add and
+     * remove, so later calls are O(1) until a bulk operation rebuilds the tree.
+     * elements must not change their hash code while they are in the tree.
+     * 
+     * @return the hash code of the tree.
+     */
+    @Override
+    public int hashCode() {
+        if (!hashValid) {
+            int h = 0;
+            for (BSTNode<E> node = (root == null) ? null : getFirstNode(root); node != null;
+                    node = inorderSuccessor(node)) {
+                h += node.data.hashCode();
+            }
+            hash = h;
+            hashValid = true;
+        }
+        return hash;
+    }
+
+    /**
+     * method that returns a string representation of the tree
+     * The string representation consists of a list of the tree's elements in the
+     * order they are returned by its iterator (inorder traversal), enclosed in
+     * square brackets ("[]").
+     * Adjacent elements are separated by the characters ", " (comma and space).
+     * Elements are converted to strings as by String.valueOf(Object).
+     * 
+     * @return a string representation of this collection
+     */
+    @Override
+    public String toString() {
+        StringBuilder x = new StringBuilder();
+        try {
+            writeTo(x);
+        } catch (IOException e) {
+            // a StringBuilder never throws.
+            throw new UncheckedIOException(e);
+        }
+        return x.toString();
+
+    }
+
+    /**
+     * method that writes the string representation of the tree, the same text as
+     * toString, straight to the given output one element at a time without
+     * building the whole string first.
+     * 
+     * @param out the output to write to.
+     * @throws NullPointerException if the output is null.
+     * @throws IOException          if writing to the output fails.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        if (out == null) {
+            throw new NullPointerException();
+        }
+        // if we have no tree we write nothing.
+        if (root == null) {
+            return;
+        }
+        out.append('[');
+        BSTNode<E> node = getFirstNode(root);
+        out.append(String.valueOf(node.data));
+        // every element after the first one is preceded by a comma.
+        for (node = inorderSuccessor(node); node != null; node = inorderSuccessor(node)) {
+            out.append(", ").append(String.valueOf(node.data));
+        }
+        out.append(']');
+    }
+
+    /**
+     * method that returns an array containing all of the elements returned by the
+     * trees iterator.
+     * in the same order, stored in consecutive elements of the array, starting with
+     * index 0.
+     * The length of the returned array is equal to the number of elements returned
+     * by the iterator.
+     * 
+     * @return an array whose whose runtime component type is Object, containing all
+     *         of the elements in this tree.
+     */
+    @Override
+    public Object[] toArray() {
+        int counter = 0;
+        Object[] x = new Object[size];
+        // iterator to help us traverse the Arraylist.
+        Iterator<E> y = iterator();
+
+        while (y.hasNext()) {
+            // adding all elements by the trees iterator to the array.
+            x[counter] = y.next();
+            counter++;
+
+        }
+        return x;
+
+    }
+
+    /**
+     * method that writes the elements of the tree in ascending order to the
+     * channel, using the codec to turn every element into bytes.
+     * the stream starts with a header holding the fixed size of the codec and the
+     * number of elements, the elements are written through one buffer that is
+     * reused for the whole tree.
+     * 
+     * @param channel the channel to write to.
+     * @param codec   the codec used to write the elements.
+     * @throws NullPointerException            if the channel or codec is null.
+     * @throws ConcurrentModificationException if the tree is changed while it is
+     *                                         written.
+     * @throws IOException                     if writing to the channel fails.
+     */
+    public void serialize(WritableByteChannel channel, KeyCodec<? super E> codec) throws IOException {
+        if (channel == null || codec == null) {
+            throw new NullPointerException();
+        }
+        int fixedSize = codec.fixedSize();
+        ByteBuffer buffer = ByteBuffer.allocate(SERIAL_BUFFER_SIZE);
+        buffer.putInt(SERIAL_MAGIC).putInt(fixedSize).putInt(size);
+
+        int expectedModCount = modCount;
+        BSTNode<E> node = (root == null) ? null : getFirstNode(root);
+        for (; node != null; node = inorderSuccessor(node)) {
+            int length = (fixedSize >= 0) ? fixedSize : codec.encodedSize(node.data);
+            // elements of different sizes are written after their size.
+            int needed = (fixedSize >= 0) ? length : length + Integer.BYTES;
+            if (buffer.remaining() < needed) {
+                drain(channel, buffer);
+                if (buffer.capacity() < needed) {
+                    buffer = ByteBuffer.allocate(needed);
+                }
+            }
+            if (fixedSize < 0) {
+                buffer.putInt(length);
+            }
+            codec.encode(node.data, buffer);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        drain(channel, buffer);
+    }
+
+    /**
+     * method that reads a tree written by serialize from the channel.
+     * the elements are read into one array and the tree is built bottom up in
+     * linear time, they are only sorted if the stream was written with a
+     * different ordering.
+     * 
+     * @param channel    the channel to read from.
+     * @param codec      the codec used to read the elements.
+     * @param comparator the comparator used to order the tree, or null to use the
+     *                   natural ordering of the elements.
+     * @param balance    the balancing strategy used by add and remove.
+     * @throws NullPointerException if the channel, codec or balance is null.
+     * @throws IOException          if reading from the channel fails or the stream
+     *                              was not written by serialize with this codec.
+     * @return a new tree holding the elements of the stream.
+     */
+    public static <E> BST<E> deserialize(ReadableByteChannel channel, KeyCodec<E> codec,
+            Comparator<? super E> comparator, Balance balance) throws IOException {
+        if (channel == null || codec == null) {
+            throw new NullPointerException();
+        }
+        BST<E> tree = new BST<E>(comparator, balance);
+        ByteBuffer buffer = ByteBuffer.allocate(SERIAL_BUFFER_SIZE);
+        buffer.flip();
+
+        buffer = fill(channel, buffer, 3 * Integer.BYTES);
+        if (buffer.getInt() != SERIAL_MAGIC) {
+            throw new IOException("not a serialized tree");
+        }
+        int fixedSize = buffer.getInt();
+        if (fixedSize != codec.fixedSize()) {
+            throw new IOException("tree was written with a different codec");
+        }
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IOException("corrupt tree size " + count);
+        }
+
+        // the array grows with the elements actually read, so a corrupt count
+        // ends in an EOFException instead of a huge allocation.
+        Object[] elements = new Object[Math.min(count, SERIAL_BUFFER_SIZE)];
+        for (int i = 0; i < count; i++) {
+            int length = fixedSize;
+            if (fixedSize < 0) {
+                buffer = fill(channel, buffer, Integer.BYTES);
+                length = buffer.getInt();
+                // a channel that knows its size lets us reject a size past its end.
+                if (length < 0 || (length > buffer.remaining()
+                        && length - buffer.remaining() > available(channel))) {
+                    throw new IOException("corrupt element size " + length);
+                }
+            }
+            buffer = fill(channel, buffer, length);
+            if (i == elements.length) {
+                elements = Arrays.copyOf(elements, (int) Math.min(count, 2L * i));
+            }
+            elements[i] = codec.decode(buffer, length);
+        }
+        tree.buildFromSorted(elements, tree.sortDistinct(elements, count));
+        return tree;
+    }
+
+    // writes everything in the buffer to the channel and clears the buffer.
+    private static void drain(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * method that reads from the channel until the buffer holds at least the
+     * needed number of bytes. A buffer that is too small is replaced by larger
+     * ones as the bytes arrive, at most doubling each time, so a corrupt size in
+     * the stream cannot make it allocate much more than the stream holds.
+     * 
+     * @return the buffer ready to be read from.
+     * @throws EOFException if the channel ends first.
+     */
+    private static ByteBuffer fill(ReadableByteChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (!buffer.hasRemaining()) {
+                int capacity = (int) Math.min(needed, 2L * buffer.capacity());
+                buffer = ByteBuffer.allocate(capacity).put(buffer.flip());
+            }
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // returns the number of bytes left in the channel if it knows its size, or
+    // Long.MAX_VALUE if it does not.
+    private static long available(ReadableByteChannel channel) throws IOException {
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel seekable = (SeekableByteChannel) channel;
+            return seekable.size() - seekable.position();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * method that Produces tree like string representation of this tree. Returns a
+     * string representation of this tree in a tree-like format.
+     * 
+     * @return a string containing all root-leaf paths of this leaf.
+     */
+    public String toStringTreeFormat() {
+        StringBuilder x = new StringBuilder();
+        try {
+            writeTreeFormatTo(x, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            // a StringBuilder never throws.
+            throw new UncheckedIOException(e);
+        }
+        return x.toString();
+
+    }
+
+    /**
+     * method that writes the tree like string representation of toStringTreeFormat
+     * straight to the given output, stopping early for big trees.
+     * the tree is walked with the parent links, the right child before the left
+     * child, so no stack is needed. Subtrees below maxDepth and the nodes after
+     * the first maxNodes are left out and replaced by a line with "...".
+     * 
+     * @param out      the output to write to.
+     * @param maxDepth the depth of the deepest nodes to be written, the root is at
+     *                 depth 0.
+     * @param maxNodes the most nodes to be written.
+     * @throws NullPointerException     if the output is null.
+     * @throws IllegalArgumentException if maxDepth or maxNodes is negative.
+     * @throws IOException              if writing to the output fails.
+     */
+    public void writeTreeFormatTo(Appendable out, int maxDepth, int maxNodes) throws IOException {
+        if (out == null) {
+            throw new NullPointerException();
+        }
+        if (maxDepth < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (root == null) {
+            writeTreeLine(out, 0, "null");
+            return;
+        }
+
+        int written = 0;
+        BSTNode<E> current = root;
+        BSTNode<E> previous = null;
+        int depth = 0;
+        while (current != null) {
+            BSTNode<E> next;
+            // we came down to this node, write it and go to the right child.
+            if (previous == current.parent) {
+                if (written == maxNodes) {
+                    writeTreeLine(out, depth, "...");
+                    return;
+                }
+                writeTreeLine(out, depth, String.valueOf(current.data));
+                written++;
+                if (depth == maxDepth) {
+                    if (current.left != null || current.right != null) {
+                        writeTreeLine(out, depth + 1, "...");
+                    }
+                    next = current.parent;
+                } else if (current.right != null) {
+                    next = current.right;
+                } else {
+                    writeTreeLine(out, depth + 1, "null");
+                    next = nextLeft(out, current, depth);
+                }
+            }
+            // we came back from the right child, go to the left child.
+            else if (previous == current.right) {
+                next = nextLeft(out, current, depth);
+            }
+            // both children are done, go back up.
+            else {
+                next = current.parent;
+            }
+
+            depth += (next == current.parent) ? -1 : 1;
+            previous = current;
+            current = next;
+        }
+    }
+
+    // returns the left child to visit next, or writes null and returns the parent.
+    private BSTNode<E> nextLeft(Appendable out, BSTNode<E> current, int depth) throws IOException {
+        if (current.left != null) {
+            return current.left;
+        }
+        writeTreeLine(out, depth + 1, "null");
+        return current.parent;
+    }
+
+    // writes one line of the tree format indented for the given depth.
+    private static void writeTreeLine(Appendable out, int depth, String text) throws IOException {
+        if (depth > 0) {
+            for (int i = 0; i < depth - 1; i++) {
+                out.append("  ");
+            }
+            out.append("|--");
+        }
+        out.append(text).append('\n');
+    }
+
+}
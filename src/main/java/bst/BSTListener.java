@@ -0,0 +1,43 @@
+package bst;
+
+/**
+ * This interface is told about every operation of a BST it is set on with
+ * BST.setListener, with the time the operation took and the number of
+ * comparisons it made. A tree without a listener does not measure anything.
+ * For add, remove, contains, ceiling, floor, lower and higher the number of
+ * comparisons is also the number of nodes visited and the depth reached.
+ * BSTMetrics is a listener that keeps counters and histograms.
+ * 
+ * @author Kei Oshima.
+ */
+
+public interface BSTListener {
+
+    /**
+     * the operations that are reported to a listener.
+     */
+    enum Operation {
+        ADD, REMOVE, CONTAINS, CEILING, FLOOR, LOWER, HIGHER, RANGE, ITERATOR;
+
+        /**
+         * method that returns true if the operation is a single walk from the
+         * root, so its comparisons are the depth it reached.
+         * 
+         * @return true if the comparisons of the operation are a depth.
+         */
+        public boolean isSearch() {
+            return this != RANGE && this != ITERATOR;
+        }
+    }
+
+    /**
+     * method called after an operation of the tree has completed, on the thread
+     * that ran it.
+     * 
+     * @param operation   the operation that completed.
+     * @param nanos       the time the operation took in nanoseconds.
+     * @param comparisons the number of element comparisons it made.
+     */
+    void operationCompleted(Operation operation, long nanos, int comparisons);
+
+}
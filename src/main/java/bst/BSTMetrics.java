@@ -0,0 +1,240 @@
+package bst;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class is a BSTListener that counts the operations and comparisons of the
+ * trees it is set on and keeps a histogram of the depth reached by searches and
+ * a latency histogram for every operation.
+ * The latency histograms keep 16 buckets for every power of two like
+ * HdrHistogram, so a percentile is accurate to about 6 percent. Every counter
+ * can be updated by many threads at once, so one instance can be shared by
+ * several trees, and it can be registered with JMX.
+ * 
+ * <pre>
+ * BSTMetrics metrics = new BSTMetrics();
+ * tree.setListener(metrics);
+ * metrics.register("orders");
+ * </pre>
+ * 
+ * @author Kei Oshima.
+ */
+
+public class BSTMetrics implements BSTListener, BSTMetricsMXBean {
+
+    // searches deeper than this are counted in the last bucket.
+    private static final int MAX_DEPTH = 63;
+
+    private final LongAdder comparisons = new LongAdder();
+    private final AtomicLongArray depths = new AtomicLongArray(MAX_DEPTH + 1);
+    private final EnumMap<Operation, Histogram> latencies = new EnumMap<Operation, Histogram>(Operation.class);
+
+    /**
+     * constructs new metrics with every counter at zero.
+     */
+    public BSTMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Histogram());
+        }
+    }
+
+    @Override
+    public void operationCompleted(Operation operation, long nanos, int comparisons) {
+        this.comparisons.add(comparisons);
+        if (operation.isSearch()) {
+            depths.incrementAndGet(Math.min(comparisons, MAX_DEPTH));
+        }
+        latencies.get(operation).record(nanos);
+    }
+
+    /**
+     * method that registers these metrics with the platform MBean server under
+     * the name bst:type=BSTMetrics,name=the given name.
+     * 
+     * @param name the name the metrics are shown under.
+     * @throws JMException if the metrics cannot be registered.
+     * @return the name they were registered with.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("bst:type=BSTMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * method that returns the number of times the operation was run.
+     * 
+     * @param operation the operation to count.
+     * @return the number of times it was run.
+     */
+    public long count(Operation operation) {
+        return latencies.get(operation).count();
+    }
+
+    /**
+     * method that returns the time the given percentage of the runs of the
+     * operation took at most.
+     * 
+     * @param operation  the operation to look at.
+     * @param percentile the percentage, from 0 to 100.
+     * @return the time in nanoseconds, or 0 if the operation never ran.
+     */
+    public long latencyPercentile(Operation operation, double percentile) {
+        return latencies.get(operation).percentile(percentile);
+    }
+
+    @Override
+    public long getComparisons() {
+        return comparisons.sum();
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        for (Operation operation : Operation.values()) {
+            counts.put(operation.name(), count(operation));
+        }
+        return counts;
+    }
+
+    @Override
+    public long[] getDepthHistogram() {
+        long[] histogram = new long[depths.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = depths.get(i);
+        }
+        return histogram;
+    }
+
+    @Override
+    public double getMeanDepth() {
+        long searches = 0;
+        long total = 0;
+        for (int i = 0; i < depths.length(); i++) {
+            searches += depths.get(i);
+            total += i * depths.get(i);
+        }
+        return (searches == 0) ? 0 : (double) total / searches;
+    }
+
+    @Override
+    public Map<String, Long> getMedianLatencyNanos() {
+        return percentiles(50);
+    }
+
+    @Override
+    public Map<String, Long> getP99LatencyNanos() {
+        return percentiles(99);
+    }
+
+    @Override
+    public Map<String, Long> getMaxLatencyNanos() {
+        Map<String, Long> max = new LinkedHashMap<String, Long>();
+        for (Operation operation : Operation.values()) {
+            max.put(operation.name(), latencies.get(operation).max.get());
+        }
+        return max;
+    }
+
+    @Override
+    public void reset() {
+        comparisons.reset();
+        for (int i = 0; i < depths.length(); i++) {
+            depths.set(i, 0);
+        }
+        for (Histogram histogram : latencies.values()) {
+            histogram.reset();
+        }
+    }
+
+    // returns the given percentile of every operation.
+    private Map<String, Long> percentiles(double percentile) {
+        Map<String, Long> values = new LinkedHashMap<String, Long>();
+        for (Operation operation : Operation.values()) {
+            values.put(operation.name(), latencyPercentile(operation, percentile));
+        }
+        return values;
+    }
+
+    /*
+     * histogram with exact buckets below 32 and 16 buckets for every power of two
+     * above that.
+     */
+    private static class Histogram {
+
+        static final int SUB_BITS = 4;
+        static final int SUB_BUCKETS = 1 << SUB_BITS;
+        static final int LINEAR = 2 * SUB_BUCKETS;
+
+        final AtomicLongArray buckets = new AtomicLongArray(LINEAR + (62 - SUB_BITS) * SUB_BUCKETS);
+        final LongAdder total = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            value = Math.max(value, 0);
+            buckets.incrementAndGet(indexOf(value));
+            total.increment();
+            max.accumulate(value);
+        }
+
+        long count() {
+            return total.sum();
+        }
+
+        long percentile(double percentile) {
+            long count = count();
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return Math.min(highestValue(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            total.reset();
+            max.reset();
+        }
+
+        // the top SUB_BITS bits below the highest one bit pick the bucket.
+        static int indexOf(long value) {
+            if (value < LINEAR) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int mantissa = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR + (exponent - SUB_BITS - 1) * SUB_BUCKETS + mantissa;
+        }
+
+        // the highest value that falls in the bucket.
+        static long highestValue(int index) {
+            if (index < LINEAR) {
+                return index;
+            }
+            int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BITS + 1;
+            long mantissa = SUB_BUCKETS + (index - LINEAR) % SUB_BUCKETS;
+            int shift = exponent - SUB_BITS;
+            return ((mantissa + 1) << shift) - 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package bst;
+
+import java.util.Map;
+
+/**
+ * This interface is the JMX view of BSTMetrics, the maps are keyed by the name
+ * of the operation.
+ * 
+ * @author Kei Oshima.
+ */
+
+public interface BSTMetricsMXBean {
+
+    /**
+     * @return the number of element comparisons made by all operations.
+     */
+    long getComparisons();
+
+    /**
+     * @return the number of times every operation was run.
+     */
+    Map<String, Long> getOperationCounts();
+
+    /**
+     * @return the number of searches that reached every depth, the last entry
+     *         counts every depth from there on.
+     */
+    long[] getDepthHistogram();
+
+    /**
+     * @return the average depth reached by searches.
+     */
+    double getMeanDepth();
+
+    /**
+     * @return the median time of every operation in nanoseconds.
+     */
+    Map<String, Long> getMedianLatencyNanos();
+
+    /**
+     * @return the 99th percentile time of every operation in nanoseconds.
+     */
+    Map<String, Long> getP99LatencyNanos();
+
+    /**
+     * @return the longest time of every operation in nanoseconds.
+     */
+    Map<String, Long> getMaxLatencyNanos();
+
+    /**
+     * sets every counter and histogram back to zero.
+     */
+    void reset();
+
+}
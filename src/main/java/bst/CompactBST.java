@@ -0,0 +1,801 @@
+package bst;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class represents a red-black binary search tree that keeps its nodes in
+ * parallel arrays instead of one node object per element.
+ * A node is an index into the arrays holding the element, the left child, the
+ * right child, the parent and the color, so the tree only allocates a handful
+ * of arrays no matter how many elements it holds. Slots of removed nodes are
+ * kept on a free list and reused by later adds.
+ * The elements are ordered using their natural ordering or by a comparator
+ * provided when the tree is constructed, like BST.
+ * 
+ * @author Kei Oshima.
+ */
+
+public class CompactBST<E> extends AbstractSet<E> {
+
+    // index used for a missing child or parent.
+    private static final int NIL = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // the arrays holding the nodes, a node is an index into all of them.
+    private Object[] keys;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private boolean[] red;
+
+    // variables needed through the program.
+    private int root = NIL;
+    private int size = 0;
+    // number of slots that have ever been used, the slots after it are untouched.
+    private int used = 0;
+    // first slot of the free list, the list is linked through the left array.
+    private int free = NIL;
+    // the comparator ordering the elements, or null for the natural ordering.
+    private final Comparator<? super E> comparator;
+    // number of structural modifications, used by the iterator to fail fast.
+    private int modCount = 0;
+
+    /**
+     * constructs a new empty tree sorted according to it's natural ordering of its
+     * elements
+     */
+    public CompactBST() {
+        this(null, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * constructs a new empty tree sorted according to the given comparator.
+     * 
+     * @param comparator the comparator used to order the tree, or null to use the
+     *                   natural ordering of the elements.
+     */
+    public CompactBST(Comparator<? super E> comparator) {
+        this(comparator, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * constructs a new empty tree sorted according to the given comparator with
+     * room for the given number of elements before the arrays have to grow.
+     * 
+     * @param comparator the comparator used to order the tree, or null to use the
+     *                   natural ordering of the elements.
+     * @param capacity   the number of elements the tree can hold without growing.
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public CompactBST(Comparator<? super E> comparator, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.comparator = comparator;
+        keys = new Object[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        red = new boolean[capacity];
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     * 
+     * @throws NullPointerException if the given element is null
+     * @param e element to be added to this set.
+     * @return true if the element was not already present, false otherwise.
+     */
+    @Override
+    public boolean add(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        if (root == NIL) {
+            // compare the element with itself to make sure it can be ordered.
+            compare(e, e);
+            root = allocate(e, NIL);
+            red[root] = false;
+            size++;
+            modCount++;
+            return true;
+        }
+
+        int node = root;
+        while (true) {
+            int cmp = compare(e, keys[node]);
+            // if the element is already in the tree we don't change and return false.
+            if (cmp == 0) {
+                return false;
+            }
+            int child = (cmp < 0) ? left[node] : right[node];
+            if (child == NIL) {
+                int added = allocate(e, node);
+                if (cmp < 0) {
+                    left[node] = added;
+                } else {
+                    right[node] = added;
+                }
+                fixAfterInsertion(added);
+                size++;
+                modCount++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Removes the specific element from the tree if it is present.
+     * 
+     * @param o-object that is to be removed from this set if it is present.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the tree.
+     * @return true if the tree contained the specific element.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        int node = getNode(o);
+        if (node == NIL) {
+            return false;
+        }
+        deleteNode(node);
+        return true;
+    }
+
+    /**
+     * method the should return true if the set contains the specified element.
+     * 
+     * @param o- object to be checked for containment in this set.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the tree.
+     * @return true if this set does contain the specified element.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        return getNode(o) != NIL;
+    }
+
+    /**
+     * method that returns the number of element in the tree.
+     * 
+     * @return the number of elements in the tree.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * removes all the elements from the set, the arrays keep their capacity.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, used, null);
+        root = NIL;
+        free = NIL;
+        size = 0;
+        used = 0;
+        modCount++;
+    }
+
+    /**
+     * method that returns the first/lowest element currently in the tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the first (lowest) element currently in the tree.
+     */
+    public E first() {
+        if (root == NIL) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(getFirstNode(root));
+    }
+
+    /**
+     * method that returns the last/highest element in this tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the last/highest element currently in the tree.
+     */
+    public E last() {
+        if (root == NIL) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(getLastNode(root));
+    }
+
+    /**
+     * method that returns the least element in this tree greater than or equal to
+     * the given element. Or null if the element does not exist.
+     * 
+     * @param e - the value that we want to match.
+     * @return the least element that is greater than or equal, or null if there is
+     *         no such element.
+     */
+    public E ceiling(E e) {
+        return keyAt(getCeilingNode(e, true));
+    }
+
+    /**
+     * method that returns the least element in this set that is strictly greater
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @return the least element greater than e or null if there is no such element.
+     */
+    public E higher(E e) {
+        return keyAt(getCeilingNode(e, false));
+    }
+
+    /**
+     * method that returns the greatest element in this set less than or equal to
+     * the given element or null if no such element exist.
+     * 
+     * @param e- the value we want to match.
+     * @return the greatest element less than or equal to the parameter, or null if
+     *         no such element exist.
+     */
+    public E floor(E e) {
+        return keyAt(getFloorNode(e, true));
+    }
+
+    /**
+     * method that returns the greatest element in this set that is strictly less
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @return the greatest element less than e or null if there is no such element.
+     */
+    public E lower(E e) {
+        return keyAt(getFloorNode(e, false));
+    }
+
+    /**
+     * method that returns a collection whose elements are in the range of
+     * fromElement to toElement both being inclusive, in ascending order.
+     * 
+     * @param fromElement - low endpoint (inclusive of the returned collection.
+     * @param toElement-  high endpoint (inclusive) of the returned collection.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return returns a collection containing a portion of the tree whose elements
+     *         range fromElement to toElement inclusive
+     */
+    public ArrayList<E> getRange(E fromElement, E toElement) {
+        if (fromElement == null || toElement == null) {
+            throw new NullPointerException();
+        }
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        ArrayList<E> range = new ArrayList<E>();
+        for (int node = getCeilingNode(fromElement, true); node != NIL
+                && compare(keys[node], toElement) <= 0; node = successor(node)) {
+            range.add(keyAt(node));
+        }
+        return range;
+    }
+
+    /**
+     * method that returns the height of the tree. The tree is walked once with
+     * the parent indexes, keeping track of the depth instead of using a stack.
+     * 
+     * @return the height of the tree or 0 if the tree is empty.
+     */
+    public int height() {
+        int current = root;
+        int previous = NIL;
+        int depth = 0;
+        int height = 0;
+
+        while (current != NIL) {
+            int next;
+            // we came down to this node, visit the left child first.
+            if (previous == parent[current]) {
+                height = Math.max(height, depth);
+                next = (left[current] != NIL) ? left[current]
+                        : (right[current] != NIL) ? right[current] : parent[current];
+            }
+            // we came back from the left child, visit the right child.
+            else if (previous == left[current] && right[current] != NIL) {
+                next = right[current];
+            }
+            // both children are done, go back up.
+            else {
+                next = parent[current];
+            }
+
+            if (next == parent[current]) {
+                depth--;
+            } else {
+                depth++;
+            }
+            previous = current;
+            current = next;
+        }
+        return height;
+    }
+
+    /**
+     * method that checks the structure of the tree: the parent indexes, the order
+     * of the elements, the red-black rules and that every slot ever used is
+     * either a node or on the free list. Used by the tests.
+     * 
+     * @throws IllegalStateException at the first rule that is broken.
+     */
+    void checkInvariants() {
+        if (root != NIL && (parent[root] != NIL || red[root])) {
+            throw new IllegalStateException("root has a parent or is red");
+        }
+        int visited = 0;
+        // black nodes from the root down to the current node, and on every path.
+        int blackDepth = 0;
+        int blackHeight = -1;
+        int last = NIL;
+
+        int current = root;
+        int previous = NIL;
+        while (current != NIL) {
+            int next;
+            boolean inorder = false;
+            if (previous == parent[current]) {
+                // first visit of the node.
+                if ((left[current] != NIL && parent[left[current]] != current)
+                        || (right[current] != NIL && parent[right[current]] != current)) {
+                    throw new IllegalStateException("broken parent link at " + keys[current]);
+                }
+                if (red[current] && (isRed(left[current]) || isRed(right[current]))) {
+                    throw new IllegalStateException("red node with a red child at " + keys[current]);
+                }
+                if (!red[current]) {
+                    blackDepth++;
+                }
+                // a missing child ends a path, all paths have the same black nodes.
+                if (left[current] == NIL || right[current] == NIL) {
+                    if (blackHeight < 0) {
+                        blackHeight = blackDepth;
+                    } else if (blackHeight != blackDepth) {
+                        throw new IllegalStateException("unequal black height at " + keys[current]);
+                    }
+                }
+                if (left[current] != NIL) {
+                    next = left[current];
+                } else {
+                    inorder = true;
+                    next = (right[current] != NIL) ? right[current] : parent[current];
+                }
+            } else if (previous == left[current]) {
+                inorder = true;
+                next = (right[current] != NIL) ? right[current] : parent[current];
+            } else {
+                next = parent[current];
+            }
+
+            if (inorder) {
+                if (last != NIL && compare(keys[last], keys[current]) >= 0) {
+                    throw new IllegalStateException("out of order at " + keys[current]);
+                }
+                last = current;
+                visited++;
+            }
+            // last visit of the node.
+            if (next == parent[current] && !red[current]) {
+                blackDepth--;
+            }
+            previous = current;
+            current = next;
+        }
+        if (visited != size) {
+            throw new IllegalStateException("size is " + size + " but the tree has " + visited + " nodes");
+        }
+        int released = 0;
+        for (int slot = free; slot != NIL; slot = left[slot]) {
+            if (keys[slot] != null || ++released > used) {
+                throw new IllegalStateException("broken free list");
+            }
+        }
+        if (size + released != used) {
+            throw new IllegalStateException("lost slots");
+        }
+    }
+
+    /**
+     * method that returns the comparator used to order the elements in this tree.
+     * 
+     * @return the comparator or null if the tree uses the natural ordering of its
+     *         elements.
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * method that returns an iterator over the elements in this tree in ascending
+     * order, it walks the arrays lazily and supports remove.
+     * 
+     * @return an iterator over the elements in the set in ascending order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new KeyIterator();
+    }
+
+    /*
+     * iterator that walks the tree in ascending order using the parent array.
+     */
+    private class KeyIterator implements Iterator<E> {
+
+        int next = (root == NIL) ? NIL : getFirstNode(root);
+        int lastReturned = NIL;
+        int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != NIL;
+        }
+
+        @Override
+        public E next() {
+            if (next == NIL) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturned = next;
+            next = successor(next);
+            return keyAt(lastReturned);
+        }
+
+        // the next node is never the one that gets freed, a node with two children
+        // takes the element of its predecessor which has already been returned.
+        @Override
+        public void remove() {
+            if (lastReturned == NIL) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            deleteNode(lastReturned);
+            lastReturned = NIL;
+            expectedModCount = modCount;
+        }
+
+    }
+
+    /**
+     * method that compares two elements using the comparator of the tree, or their
+     * natural ordering if the tree has no comparator.
+     * 
+     * @throws ClassCastException if the elements cannot be compared.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        if (comparator == null) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return comparator.compare((E) a, (E) b);
+    }
+
+    // returns the element of the node or null for NIL.
+    @SuppressWarnings("unchecked")
+    private E keyAt(int node) {
+        return (node == NIL) ? null : (E) keys[node];
+    }
+
+    /**
+     * method that takes a slot for a new red leaf, from the free list if possible
+     * and otherwise from the end of the arrays, growing them when they are full.
+     * 
+     * @return the index of the new node.
+     */
+    private int allocate(E e, int parentNode) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = left[free];
+        } else {
+            if (used == keys.length) {
+                grow();
+            }
+            node = used++;
+        }
+        keys[node] = e;
+        left[node] = NIL;
+        right[node] = NIL;
+        parent[node] = parentNode;
+        red[node] = true;
+        return node;
+    }
+
+    // puts the slot of a removed node on the free list.
+    private void release(int node) {
+        keys[node] = null;
+        left[node] = free;
+        free = node;
+    }
+
+    // grows all the arrays by half their length.
+    private void grow() {
+        int capacity = Math.max(DEFAULT_CAPACITY, keys.length + (keys.length >> 1));
+        keys = Arrays.copyOf(keys, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        red = Arrays.copyOf(red, capacity);
+    }
+
+    // returns the node holding the element or NIL.
+    private int getNode(Object o) {
+        int current = root;
+        while (current != NIL) {
+            int cmp = compare(o, keys[current]);
+            if (cmp < 0) {
+                current = left[current];
+            } else if (cmp > 0) {
+                current = right[current];
+            } else {
+                return current;
+            }
+        }
+        return NIL;
+    }
+
+    // returns the least node greater than (or equal to, if inclusive) e or NIL.
+    private int getCeilingNode(E e, boolean inclusive) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int current = root;
+        int best = NIL;
+        while (current != NIL) {
+            int cmp = compare(e, keys[current]);
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                best = current;
+                current = left[current];
+            } else {
+                current = right[current];
+            }
+        }
+        return best;
+    }
+
+    // returns the greatest node less than (or equal to, if inclusive) e or NIL.
+    private int getFloorNode(E e, boolean inclusive) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        int current = root;
+        int best = NIL;
+        while (current != NIL) {
+            int cmp = compare(e, keys[current]);
+            if (cmp > 0 || (cmp == 0 && inclusive)) {
+                best = current;
+                current = right[current];
+            } else {
+                current = left[current];
+            }
+        }
+        return best;
+    }
+
+    // returns the left most node of the subtree.
+    private int getFirstNode(int node) {
+        while (left[node] != NIL) {
+            node = left[node];
+        }
+        return node;
+    }
+
+    // returns the right most node of the subtree.
+    private int getLastNode(int node) {
+        while (right[node] != NIL) {
+            node = right[node];
+        }
+        return node;
+    }
+
+    // returns the node that follows the given node in ascending order or NIL.
+    private int successor(int node) {
+        if (right[node] != NIL) {
+            return getFirstNode(right[node]);
+        }
+        int up = parent[node];
+        while (up != NIL && node == right[up]) {
+            node = up;
+            up = parent[up];
+        }
+        return up;
+    }
+
+    /**
+     * method that removes the given node from the tree, a node with two children
+     * takes the element of its predecessor and the predecessor slot is freed
+     * instead.
+     */
+    private void deleteNode(int node) {
+        if (left[node] != NIL && right[node] != NIL) {
+            int predecessor = getLastNode(left[node]);
+            keys[node] = keys[predecessor];
+            node = predecessor;
+        }
+
+        int replacement = (left[node] != NIL) ? left[node] : right[node];
+        if (replacement != NIL) {
+            parent[replacement] = parent[node];
+            replaceChild(parent[node], node, replacement);
+            if (!red[node]) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (parent[node] == NIL) {
+            root = NIL;
+        } else {
+            // a black leaf is fixed up while it is still linked to the tree.
+            if (!red[node]) {
+                fixAfterDeletion(node);
+            }
+            replaceChild(parent[node], node, NIL);
+        }
+        release(node);
+        size--;
+        modCount++;
+    }
+
+    // links the new child in place of the old child of parentNode, or as the root.
+    private void replaceChild(int parentNode, int oldChild, int newChild) {
+        if (parentNode == NIL) {
+            root = newChild;
+        } else if (left[parentNode] == oldChild) {
+            left[parentNode] = newChild;
+        } else {
+            right[parentNode] = newChild;
+        }
+    }
+
+    // restores the red-black properties after a red leaf has been linked in.
+    private void fixAfterInsertion(int x) {
+        while (x != root && isRed(parent[x])) {
+            int grandparent = parent[parent[x]];
+            if (parent[x] == left[grandparent]) {
+                int uncle = right[grandparent];
+                if (isRed(uncle)) {
+                    red[parent[x]] = false;
+                    red[uncle] = false;
+                    red[grandparent] = true;
+                    x = grandparent;
+                } else {
+                    if (x == right[parent[x]]) {
+                        x = parent[x];
+                        rotateLeft(x);
+                    }
+                    red[parent[x]] = false;
+                    red[grandparent] = true;
+                    rotateRight(grandparent);
+                }
+            } else {
+                int uncle = left[grandparent];
+                if (isRed(uncle)) {
+                    red[parent[x]] = false;
+                    red[uncle] = false;
+                    red[grandparent] = true;
+                    x = grandparent;
+                } else {
+                    if (x == left[parent[x]]) {
+                        x = parent[x];
+                        rotateRight(x);
+                    }
+                    red[parent[x]] = false;
+                    red[grandparent] = true;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        red[root] = false;
+    }
+
+    // restores the red-black properties after a black node has been removed.
+    private void fixAfterDeletion(int x) {
+        while (x != root && !isRed(x)) {
+            int up = parent[x];
+            if (x == left[up]) {
+                int sibling = right[up];
+                if (isRed(sibling)) {
+                    red[sibling] = false;
+                    red[up] = true;
+                    rotateLeft(up);
+                    sibling = right[up];
+                }
+                if (!isRed(left[sibling]) && !isRed(right[sibling])) {
+                    red[sibling] = true;
+                    x = up;
+                } else {
+                    if (!isRed(right[sibling])) {
+                        red[left[sibling]] = false;
+                        red[sibling] = true;
+                        rotateRight(sibling);
+                        sibling = right[up];
+                    }
+                    red[sibling] = red[up];
+                    red[up] = false;
+                    red[right[sibling]] = false;
+                    rotateLeft(up);
+                    x = root;
+                }
+            } else {
+                int sibling = left[up];
+                if (isRed(sibling)) {
+                    red[sibling] = false;
+                    red[up] = true;
+                    rotateRight(up);
+                    sibling = left[up];
+                }
+                if (!isRed(right[sibling]) && !isRed(left[sibling])) {
+                    red[sibling] = true;
+                    x = up;
+                } else {
+                    if (!isRed(left[sibling])) {
+                        red[right[sibling]] = false;
+                        red[sibling] = true;
+                        rotateLeft(sibling);
+                        sibling = left[up];
+                    }
+                    red[sibling] = red[up];
+                    red[up] = false;
+                    red[left[sibling]] = false;
+                    rotateRight(up);
+                    x = root;
+                }
+            }
+        }
+        red[x] = false;
+    }
+
+    // rotates the subtree rooted at the given node to the left.
+    private void rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        if (left[pivot] != NIL) {
+            parent[left[pivot]] = node;
+        }
+        parent[pivot] = parent[node];
+        replaceChild(parent[node], node, pivot);
+        left[pivot] = node;
+        parent[node] = pivot;
+    }
+
+    // rotates the subtree rooted at the given node to the right.
+    private void rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        if (right[pivot] != NIL) {
+            parent[right[pivot]] = node;
+        }
+        parent[pivot] = parent[node];
+        replaceChild(parent[node], node, pivot);
+        right[pivot] = node;
+        parent[node] = pivot;
+    }
+
+    // returns true if the node is red, NIL counts as black.
+    private boolean isRed(int node) {
+        return node != NIL && red[node];
+    }
+
+}
@@ -0,0 +1,312 @@
+package bst;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a sorted set with the same methods as BST that can be
+ * used by many threads at once without any outside locking.
+ * The elements are kept in a concurrent skip list, so contains, ceiling and
+ * floor never take a lock and adds and removes only compete for the few links
+ * around the element they change. Every add and remove is a single atomic
+ * step. The number of elements is kept in a striped counter that is only
+ * changed after one of them succeeds, so writers on different cores do not
+ * compete for it. size is therefore a weakly consistent estimate. It is exact
+ * when no other thread is changing the set, but it can briefly lag adds and
+ * removes in progress.
+ * The elements are ordered using their natural ordering or by a comparator
+ * provided when the set is constructed, like BST.
+ * 
+ * @author Kei Oshima.
+ */
+
+public class ConcurrentBST<E> extends AbstractSet<E> {
+
+    // the skip list holding the elements.
+    private final ConcurrentSkipListSet<E> elements;
+    // the number of elements, changed after every add or remove that succeeds.
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * constructs a new empty set sorted according to it's natural ordering of its
+     * elements
+     */
+    public ConcurrentBST() {
+        this(null);
+    }
+
+    /**
+     * constructs a new empty set sorted according to the given comparator.
+     * 
+     * @param comparator the comparator used to order the set, or null to use the
+     *                   natural ordering of the elements.
+     */
+    public ConcurrentBST(Comparator<? super E> comparator) {
+        elements = new ConcurrentSkipListSet<E>(comparator);
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     * 
+     * @throws NullPointerException if the given element is null
+     * @param e element to be added to this set.
+     * @return true if the element was not already present, false otherwise.
+     */
+    @Override
+    public boolean add(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!elements.add(e)) {
+            return false;
+        }
+        size.increment();
+        return true;
+    }
+
+    /**
+     * Removes the specific element from the set if it is present, only one of
+     * the threads removing the same element gets true.
+     * 
+     * @param o-object that is to be removed from this set if it is present.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the set.
+     * @return true if the set contained the specific element.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        if (!elements.remove(o)) {
+            return false;
+        }
+        size.decrement();
+        return true;
+    }
+
+    /**
+     * method the should return true if the set contains the specified element.
+     * 
+     * @param o- object to be checked for containment in this set.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the set.
+     * @return true if this set does contain the specified element.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        return elements.contains(o);
+    }
+
+    /**
+     * method that returns the number of element in the set in constant time.
+     * While other threads are changing the set this is only an estimate, since
+     * the counter is changed just after each add or remove.
+     * 
+     * @return the number of elements in the set.
+     */
+    @Override
+    public int size() {
+        // a remove can count down before the add of the same element counts up.
+        long count = size.sum();
+        return (int) Math.max(0, Math.min(count, Integer.MAX_VALUE));
+    }
+
+    /**
+     * checks to see if the given set is empty or not using the same counter as
+     * size, so the two always agree.
+     * 
+     * @return true if the set contains no elements.
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * removes all the elements from the set, the elements are removed one at a
+     * time so the size stays right while other threads keep adding. Only the
+     * elements up to the last one at the start of the call are removed, so the
+     * call ends even if other threads never stop adding.
+     */
+    @Override
+    public void clear() {
+        E last;
+        try {
+            last = elements.last();
+        } catch (NoSuchElementException e) {
+            return;
+        }
+        for (E e : elements.headSet(last, true)) {
+            if (elements.remove(e)) {
+                size.decrement();
+            }
+        }
+    }
+
+    /**
+     * method that returns the first/lowest element currently in the set.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the first (lowest) element currently in the set.
+     */
+    public E first() {
+        return elements.first();
+    }
+
+    /**
+     * method that returns the last/highest element in this set.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the last/highest element currently in the set.
+     */
+    public E last() {
+        return elements.last();
+    }
+
+    /**
+     * method that returns the least element in this set greater than or equal to
+     * the given element. Or null if the element does not exist.
+     * 
+     * @param e - the value that we want to match.
+     * @return the least element that is greater than or equal, or null if there is
+     *         no such element.
+     */
+    public E ceiling(E e) {
+        return elements.ceiling(e);
+    }
+
+    /**
+     * method that returns the least element in this set that is strictly greater
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @return the least element greater than e or null if there is no such element.
+     */
+    public E higher(E e) {
+        return elements.higher(e);
+    }
+
+    /**
+     * method that returns the greatest element in this set less than or equal to
+     * the given element or null if no such element exist.
+     * 
+     * @param e- the value we want to match.
+     * @return the greatest element less than or equal to the parameter, or null if
+     *         no such element exist.
+     */
+    public E floor(E e) {
+        return elements.floor(e);
+    }
+
+    /**
+     * method that returns the greatest element in this set that is strictly less
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @return the greatest element less than e or null if there is no such element.
+     */
+    public E lower(E e) {
+        return elements.lower(e);
+    }
+
+    /**
+     * method that returns a collection whose elements are in the range of
+     * fromElement to toElement both being inclusive, in ascending order. Elements
+     * added or removed by other threads while the range is copied may or may not
+     * be in it.
+     * 
+     * @param fromElement - low endpoint (inclusive of the returned collection.
+     * @param toElement-  high endpoint (inclusive) of the returned collection.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return returns a collection containing a portion of the set whose elements
+     *         range fromElement to toElement inclusive
+     */
+    public ArrayList<E> getRange(E fromElement, E toElement) {
+        return new ArrayList<E>(elements.subSet(fromElement, true, toElement, true));
+    }
+
+    /**
+     * method that returns the comparator used to order the elements in this set.
+     * 
+     * @return the comparator or null if the set uses the natural ordering of its
+     *         elements.
+     */
+    public Comparator<? super E> comparator() {
+        return elements.comparator();
+    }
+
+    /**
+     * method that returns an iterator over the elements in this set in ascending
+     * order. The iterator never throws ConcurrentModificationException, it may or
+     * may not see changes made after it was created, and it supports remove.
+     * 
+     * @return an iterator over the elements in the set in ascending order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new KeyIterator(elements.iterator());
+    }
+
+    /**
+     * method that returns a spliterator over the elements in this set in
+     * ascending order, used by stream and parallelStream. The size is only an
+     * estimate while other threads change the set, so unlike the spliterator of
+     * AbstractSet it does not report SIZED or SUBSIZED.
+     * 
+     * @return a weakly consistent spliterator over the elements in this set.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return elements.spliterator();
+    }
+
+    /*
+     * iterator over the skip list that keeps the size counter right on remove.
+     */
+    private class KeyIterator implements Iterator<E> {
+
+        final Iterator<E> iterator;
+        E lastReturned = null;
+
+        KeyIterator(Iterator<E> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+            lastReturned = iterator.next();
+            return lastReturned;
+        }
+
+        // goes through remove so only the thread that really removes the element
+        // changes the size.
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentBST.this.remove(lastReturned);
+            lastReturned = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,420 @@
+package bst;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class represents a red-black binary search tree of int keys.
+ * It offers the same operations as BST but stores the keys unboxed in the
+ * nodes, so no Integer objects are allocated for the elements and comparing two
+ * keys does not follow a pointer.
+ * The red-black balancing is shared with LongBST through RedBlackTree.
+ * Methods that may not find an element return an OptionalInt instead of
+ * null.
+ * 
+ * @author Kei Oshima.
+ */
+
+public class IntBST extends RedBlackTree<IntBST.Node> implements Iterable<Integer> {
+
+    // node class holding the key, static so it does not keep a reference to the
+    // tree. The links and the color are kept by RedBlackTree.
+    static final class Node extends RedBlackTree.Node<Node> {
+        private int key;
+
+        // node constructor that takes the key and the parent of the new node.
+        Node(int key, Node parent) {
+            super(parent);
+            this.key = key;
+        }
+
+    }
+
+    /**
+     * constructs a new empty tree.
+     */
+    public IntBST() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * constructor that creates a new tree containing the given keys.
+     * the keys are sorted once and the tree is built bottom up in linear time.
+     * 
+     * @throws NullPointerException if the given array is null
+     * @param keys
+     */
+    public IntBST(int[] keys) {
+        if (keys == null) {
+            throw new NullPointerException();
+        }
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        // keep the first of every run of equal keys.
+        int n = (sorted.length == 0) ? 0 : 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[n - 1] != sorted[i]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        root = buildFromSorted(sorted, 0, n - 1, null, 0, redLevel(n));
+        size = n;
+    }
+
+    /**
+     * helper method that builds the subtree holding the keys from lo to hi by
+     * making the middle key its root, only the deepest incomplete level is red.
+     */
+    private static Node buildFromSorted(int[] keys, int lo, int hi, Node parent, int level, int redLevel) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        Node node = new Node(keys[mid], parent);
+        node.left = buildFromSorted(keys, lo, mid - 1, node, level + 1, redLevel);
+        node.right = buildFromSorted(keys, mid + 1, hi, node, level + 1, redLevel);
+        node.red = (level == redLevel);
+        return node;
+    }
+
+    /**
+     * Adds the specified key to the set if it is not already present.
+     * 
+     * @param e key to be added to this set.
+     * @return true if the key was not already present, false otherwise.
+     */
+    public boolean add(int e) {
+        if (root == null) {
+            root = new Node(e, null);
+            root.red = false;
+            size++;
+            modCount++;
+            return true;
+        }
+
+        Node node = root;
+        while (true) {
+            // if the key is already in the tree we don't change and return false.
+            if (e == node.key) {
+                return false;
+            }
+            Node child = (e < node.key) ? node.left : node.right;
+            if (child == null) {
+                Node added = new Node(e, node);
+                if (e < node.key) {
+                    node.left = added;
+                } else {
+                    node.right = added;
+                }
+                fixAfterInsertion(added);
+                size++;
+                modCount++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Removes the specific key from the tree if it is present.
+     * 
+     * @param e key that is to be removed from this set if it is present.
+     * @return true if the tree contained the specific key.
+     */
+    public boolean remove(int e) {
+        Node node = getNode(e);
+        if (node == null) {
+            return false;
+        }
+        deleteNode(node);
+        return true;
+    }
+
+    /**
+     * method that returns true if the set contains the specified key.
+     * 
+     * @param e key to be checked for containment in this set.
+     * @return true if this set does contain the specified key.
+     */
+    public boolean contains(int e) {
+        return getNode(e) != null;
+    }
+
+    /**
+     * method that returns the first/lowest key currently in the tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the first (lowest) key currently in the tree.
+     */
+    public int first() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return getFirstNode(root).key;
+    }
+
+    /**
+     * method that returns the last/highest key in this tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the last/highest key currently in the tree.
+     */
+    public int last() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return getLastNode(root).key;
+    }
+
+    /**
+     * method that returns the least key in this tree greater than or equal to the
+     * given key.
+     * 
+     * @param e - the value that we want to match.
+     * @return the least key greater than or equal to e, or an empty optional.
+     */
+    public OptionalInt ceiling(int e) {
+        Node current = root;
+        Node best = null;
+        while (current != null) {
+            if (e == current.key) {
+                return OptionalInt.of(e);
+            }
+            if (e < current.key) {
+                best = current;
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        return keyOf(best);
+    }
+
+    /**
+     * method that returns the greatest key in this set less than or equal to the
+     * given key.
+     * 
+     * @param e - the value we want to match.
+     * @return the greatest key less than or equal to e, or an empty optional.
+     */
+    public OptionalInt floor(int e) {
+        Node current = root;
+        Node best = null;
+        while (current != null) {
+            if (e == current.key) {
+                return OptionalInt.of(e);
+            }
+            if (e > current.key) {
+                best = current;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return keyOf(best);
+    }
+
+    /**
+     * method that returns the greatest key in this set that is strictly less than
+     * the given key.
+     * 
+     * @param e - the value we want to match.
+     * @return the greatest key less than e, or an empty optional.
+     */
+    public OptionalInt lower(int e) {
+        Node current = root;
+        Node best = null;
+        while (current != null) {
+            if (e > current.key) {
+                best = current;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return keyOf(best);
+    }
+
+    /**
+     * method that returns the least key in this set that is strictly greater than
+     * the given key.
+     * 
+     * @param e - the value we want to match.
+     * @return the least key greater than e, or an empty optional.
+     */
+    public OptionalInt higher(int e) {
+        return keyOf(getHigherNode(e));
+    }
+
+    /**
+     * method that returns the keys in the range of fromKey to toKey both being
+     * inclusive, in ascending order.
+     * 
+     * @param fromKey - low endpoint (inclusive) of the range.
+     * @param toKey-  high endpoint (inclusive) of the range.
+     * @throws IllegalArgumentException - if fromKey is greater than toKey.
+     * @return an array containing the keys in the range.
+     */
+    public int[] getRange(int fromKey, int toKey) {
+        int[] range = new int[16];
+        int count = 0;
+        for (Node node = getCeilingNode(fromKey, toKey); node != null && node.key <= toKey; node = successor(node)) {
+            if (count == range.length) {
+                range = Arrays.copyOf(range, count * 2);
+            }
+            range[count++] = node.key;
+        }
+        return Arrays.copyOf(range, count);
+    }
+
+    /**
+     * method that performs the given action for every key in the range of fromKey
+     * to toKey both being inclusive, in ascending order.
+     * 
+     * @param fromKey - low endpoint (inclusive) of the range.
+     * @param toKey-  high endpoint (inclusive) of the range.
+     * @param action  - the action to be performed for each key.
+     * @throws IllegalArgumentException - if fromKey is greater than toKey.
+     * @throws NullPointerException     - if action is null.
+     */
+    public void forEachInRange(int fromKey, int toKey, IntConsumer action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        for (Node node = getCeilingNode(fromKey, toKey); node != null && node.key <= toKey; node = successor(node)) {
+            action.accept(node.key);
+        }
+    }
+
+    /**
+     * method that returns an array containing all of the keys in ascending order.
+     * 
+     * @return an array containing all of the keys in this tree.
+     */
+    public int[] toArray() {
+        int[] keys = new int[size];
+        int count = 0;
+        for (Node node = (root == null) ? null : getFirstNode(root); node != null; node = successor(node)) {
+            keys[count++] = node.key;
+        }
+        return keys;
+    }
+
+    /**
+     * method that returns an iterator over the keys in this tree in ascending
+     * order, the keys are returned without boxing through nextInt.
+     * 
+     * @return an iterator over the keys in the set in ascending order.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * method that returns a sequential stream over the keys in ascending order.
+     * 
+     * @return a stream of the keys of this tree.
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * method that returns a string representation of the tree, the keys in
+     * ascending order enclosed in square brackets and separated by ", ".
+     * 
+     * @return a string representation of this tree.
+     */
+    @Override
+    public String toString() {
+        StringBuilder x = new StringBuilder("[");
+        for (Node node = (root == null) ? null : getFirstNode(root); node != null; node = successor(node)) {
+            if (x.length() > 1) {
+                x.append(", ");
+            }
+            x.append(node.key);
+        }
+        return x.append(']').toString();
+    }
+
+    /*
+     * iterator that returns the keys in ascending order without boxing.
+     */
+    private class KeyIterator extends NodeIterator implements PrimitiveIterator.OfInt {
+
+        @Override
+        public int nextInt() {
+            return nextNode().key;
+        }
+
+    }
+
+    @Override
+    void copyKey(Node from, Node to) {
+        to.key = from.key;
+    }
+
+    // returns the key of the node as an optional.
+    private static OptionalInt keyOf(Node node) {
+        return (node == null) ? OptionalInt.empty() : OptionalInt.of(node.key);
+    }
+
+    // returns the node holding the key or null.
+    private Node getNode(int e) {
+        Node current = root;
+        while (current != null) {
+            if (e < current.key) {
+                current = current.left;
+            } else if (e > current.key) {
+                current = current.right;
+            } else {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    // returns the least node strictly greater than the key or null.
+    private Node getHigherNode(int e) {
+        Node current = root;
+        Node best = null;
+        while (current != null) {
+            if (e < current.key) {
+                best = current;
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        return best;
+    }
+
+    // checks the range and returns the least node greater than or equal to fromKey.
+    private Node getCeilingNode(int fromKey, int toKey) {
+        if (fromKey > toKey) {
+            throw new IllegalArgumentException();
+        }
+        Node current = root;
+        Node best = null;
+        while (current != null) {
+            if (fromKey <= current.key) {
+                best = current;
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        return best;
+    }
+
+}
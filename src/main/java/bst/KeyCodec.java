@@ -0,0 +1,159 @@
+package bst;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This interface converts the elements of a tree to bytes and back, it is used
+ * by BST.serialize and BST.deserialize.
+ * A codec either writes every element with the same number of bytes, which is
+ * returned by fixedSize, or writes elements of different sizes, in which case
+ * the stream stores the size in front of every element.
+ * 
+ * @author Kei Oshima.
+ */
+
+public interface KeyCodec<E> {
+
+    /**
+     * codec writing an Integer as 4 bytes.
+     */
+    KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+
+        @Override
+        public int fixedSize() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public int encodedSize(Integer key) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode(Integer key, ByteBuffer out) {
+            out.putInt(key);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer in, int length) {
+            return in.getInt();
+        }
+
+    };
+
+    /**
+     * codec writing a Long as 8 bytes.
+     */
+    KeyCodec<Long> LONG = new KeyCodec<Long>() {
+
+        @Override
+        public int fixedSize() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public int encodedSize(Long key) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(Long key, ByteBuffer out) {
+            out.putLong(key);
+        }
+
+        @Override
+        public Long decode(ByteBuffer in, int length) {
+            return in.getLong();
+        }
+
+    };
+
+    /**
+     * codec writing a String as its UTF-8 bytes. encodedSize counts the bytes
+     * from the characters, so every String is only encoded once.
+     */
+    KeyCodec<String> STRING = new KeyCodec<String>() {
+
+        @Override
+        public int fixedSize() {
+            return -1;
+        }
+
+        @Override
+        public int encodedSize(String key) {
+            return utf8Length(key);
+        }
+
+        @Override
+        public void encode(String key, ByteBuffer out) {
+            out.put(key.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String decode(ByteBuffer in, int length) {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+    };
+
+    /**
+     * method that returns the number of bytes written for every element.
+     * 
+     * @return the size of every element or -1 if the elements have different
+     *         sizes.
+     */
+    int fixedSize();
+
+    /**
+     * method that returns the number of bytes encode writes for the element.
+     * 
+     * @param key the element to be written.
+     * @return the number of bytes of the element.
+     */
+    int encodedSize(E key);
+
+    /**
+     * method that writes the element to the buffer, which has room for at least
+     * encodedSize bytes.
+     * 
+     * @param key the element to be written.
+     * @param out the buffer to write to.
+     */
+    void encode(E key, ByteBuffer out);
+
+    /**
+     * method that reads one element from the buffer.
+     * 
+     * @param in     the buffer holding at least length bytes of the element.
+     * @param length the number of bytes of the element.
+     * @return the element read.
+     */
+    E decode(ByteBuffer in, int length);
+
+    // returns the number of bytes String.getBytes writes for the string in UTF-8,
+    // a surrogate without its other half is written as a single '?'.
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,806 @@
+package bst;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * This class represents a red-black binary search tree of long keys whose
+ * nodes live outside the Java heap.
+ * Every node is a fixed size record holding the key, the left, right and
+ * parent node indexes and the color. The records are stored in direct byte
+ * buffers, or in a memory-mapped file when the tree is opened with open, so
+ * the garbage collector never sees the nodes no matter how many keys the tree
+ * holds. The buffers are added in chunks as the tree grows and slots of removed
+ * nodes are reused through a free list.
+ * A mapped tree can be closed and opened again later. The nodes are changed
+ * in place, a single add or remove can rewrite several of them through
+ * rotations, and there is no journal, so the file only holds a consistent tree
+ * after flush or close. A file left behind by a process or machine that went
+ * down in between may hold a broken tree.
+ * 
+ * @author Kei Oshima.
+ */
+
+public class OffHeapLongBST implements Closeable {
+
+    // index used for a missing child or parent.
+    private static final int NIL = -1;
+
+    // layout of a node record.
+    private static final int KEY = 0;
+    private static final int LEFT = 8;
+    private static final int RIGHT = 12;
+    private static final int PARENT = 16;
+    private static final int COLOR = 20;
+    private static final int NODE_BYTES = 24;
+
+    // every chunk holds 2^16 nodes.
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_NODES - 1;
+    private static final int CHUNK_BYTES = CHUNK_NODES * NODE_BYTES;
+
+    // layout of the header at the start of a mapped file.
+    private static final long MAGIC = 0x4253544C4F4E4731L;
+    private static final int HEADER_BYTES = 64;
+
+    // the buffers holding the nodes and the file and header they are mapped
+    // from, if any.
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+
+    // variables needed through the program.
+    private int root = NIL;
+    private int size = 0;
+    // number of slots that have ever been used, the slots after it are untouched.
+    private int used = 0;
+    // first slot of the free list, the list is linked through the left index.
+    private int free = NIL;
+    // number of structural modifications, used by the iterator to fail fast.
+    private int modCount = 0;
+
+    /**
+     * constructs a new empty tree whose nodes are kept in direct memory.
+     */
+    public OffHeapLongBST() {
+        this.channel = null;
+        this.header = null;
+    }
+
+    // constructor used by open for a tree mapped from the given file.
+    private OffHeapLongBST(FileChannel channel, MappedByteBuffer header) {
+        this.channel = channel;
+        this.header = header;
+    }
+
+    /**
+     * method that opens a tree stored in the given file, creating the file if it
+     * does not exist. The nodes are memory-mapped from the file, so the tree can
+     * be much larger than the heap and is kept when the tree is closed.
+     * 
+     * @param file the file holding the tree.
+     * @throws IOException if the file cannot be read or mapped, or is not empty
+     *                     and does not hold a tree.
+     * @return the tree stored in the file.
+     */
+    public static OffHeapLongBST open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            // only an empty file becomes a new tree, anything else must hold one.
+            long length = channel.size();
+            if (length != 0 && length < HEADER_BYTES) {
+                throw new IOException("not a tree file");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            OffHeapLongBST tree = new OffHeapLongBST(channel, header);
+            if (length == 0) {
+                tree.writeHeader();
+            } else {
+                tree.readHeader();
+            }
+            return tree;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the specified key to the set if it is not already present.
+     * 
+     * @param e key to be added to this set.
+     * @return true if the key was not already present, false otherwise.
+     */
+    public boolean add(long e) {
+        if (root == NIL) {
+            root = allocate(e, NIL);
+            setRed(root, false);
+            size++;
+            modCount++;
+            writeHeader();
+            return true;
+        }
+
+        int node = root;
+        while (true) {
+            long current = key(node);
+            // if the key is already in the tree we don't change and return false.
+            if (e == current) {
+                return false;
+            }
+            int child = (e < current) ? left(node) : right(node);
+            if (child == NIL) {
+                int added = allocate(e, node);
+                if (e < current) {
+                    setLeft(node, added);
+                } else {
+                    setRight(node, added);
+                }
+                fixAfterInsertion(added);
+                size++;
+                modCount++;
+                writeHeader();
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Removes the specific key from the tree if it is present.
+     * 
+     * @param e key that is to be removed from this set if it is present.
+     * @return true if the tree contained the specific key.
+     */
+    public boolean remove(long e) {
+        int node = getNode(e);
+        if (node == NIL) {
+            return false;
+        }
+        deleteNode(node);
+        return true;
+    }
+
+    /**
+     * method that returns true if the set contains the specified key.
+     * 
+     * @param e key to be checked for containment in this set.
+     * @return true if this set does contain the specified key.
+     */
+    public boolean contains(long e) {
+        return getNode(e) != NIL;
+    }
+
+    /**
+     * method that returns the number of keys in the tree.
+     * 
+     * @return the number of keys in the tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * checks to see if the given set is empty or not
+     * 
+     * @return true if the set contains no keys.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * removes all the keys from the set, the memory already taken is kept for
+     * later adds.
+     */
+    public void clear() {
+        root = NIL;
+        free = NIL;
+        size = 0;
+        used = 0;
+        modCount++;
+        writeHeader();
+    }
+
+    /**
+     * method that returns the first/lowest key currently in the tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the first (lowest) key currently in the tree.
+     */
+    public long first() {
+        if (root == NIL) {
+            throw new NoSuchElementException();
+        }
+        return key(getFirstNode(root));
+    }
+
+    /**
+     * method that returns the last/highest key in this tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the last/highest key currently in the tree.
+     */
+    public long last() {
+        if (root == NIL) {
+            throw new NoSuchElementException();
+        }
+        return key(getLastNode(root));
+    }
+
+    /**
+     * method that returns the least key in this tree greater than or equal to the
+     * given key.
+     * 
+     * @param e - the value that we want to match.
+     * @return the least key greater than or equal to e, or an empty optional.
+     */
+    public OptionalLong ceiling(long e) {
+        return keyOf(getCeilingNode(e, true));
+    }
+
+    /**
+     * method that returns the least key in this set that is strictly greater than
+     * the given key.
+     * 
+     * @param e - the value we want to match.
+     * @return the least key greater than e, or an empty optional.
+     */
+    public OptionalLong higher(long e) {
+        return keyOf(getCeilingNode(e, false));
+    }
+
+    /**
+     * method that returns the greatest key in this set less than or equal to the
+     * given key.
+     * 
+     * @param e - the value we want to match.
+     * @return the greatest key less than or equal to e, or an empty optional.
+     */
+    public OptionalLong floor(long e) {
+        return keyOf(getFloorNode(e, true));
+    }
+
+    /**
+     * method that returns the greatest key in this set that is strictly less than
+     * the given key.
+     * 
+     * @param e - the value we want to match.
+     * @return the greatest key less than e, or an empty optional.
+     */
+    public OptionalLong lower(long e) {
+        return keyOf(getFloorNode(e, false));
+    }
+
+    /**
+     * method that returns the keys in the range of fromKey to toKey both being
+     * inclusive, in ascending order.
+     * 
+     * @param fromKey - low endpoint (inclusive) of the range.
+     * @param toKey-  high endpoint (inclusive) of the range.
+     * @throws IllegalArgumentException - if fromKey is greater than toKey.
+     * @return an array containing the keys in the range.
+     */
+    public long[] getRange(long fromKey, long toKey) {
+        long[] range = new long[16];
+        int count = 0;
+        for (int node = getRangeStart(fromKey, toKey); node != NIL && key(node) <= toKey; node = successor(node)) {
+            if (count == range.length) {
+                range = Arrays.copyOf(range, count * 2);
+            }
+            range[count++] = key(node);
+        }
+        return Arrays.copyOf(range, count);
+    }
+
+    /**
+     * method that performs the given action for every key in the range of fromKey
+     * to toKey both being inclusive, in ascending order, without collecting the
+     * keys on the heap.
+     * 
+     * @param fromKey - low endpoint (inclusive) of the range.
+     * @param toKey-  high endpoint (inclusive) of the range.
+     * @param action  - the action to be performed for each key.
+     * @throws IllegalArgumentException - if fromKey is greater than toKey.
+     * @throws NullPointerException     - if action is null.
+     */
+    public void forEachInRange(long fromKey, long toKey, LongConsumer action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        for (int node = getRangeStart(fromKey, toKey); node != NIL && key(node) <= toKey; node = successor(node)) {
+            action.accept(key(node));
+        }
+    }
+
+    /**
+     * method that returns an iterator over the keys in this tree in ascending
+     * order, the keys are returned without boxing through nextLong.
+     * 
+     * @return an iterator over the keys in the set in ascending order.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * method that forces the nodes and then the header of a mapped tree to the
+     * disk. Does nothing for a tree kept in direct memory.
+     * 
+     * @throws IOException if the changes cannot be written.
+     */
+    public void flush() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+        header.force();
+    }
+
+    /**
+     * method that flushes a mapped tree and closes its file. The memory of a tree
+     * kept in direct memory is released once the tree is no longer reachable.
+     * 
+     * @throws IOException if the tree cannot be flushed or the file closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /*
+     * iterator that walks the tree in ascending order using the parent indexes.
+     */
+    private class KeyIterator implements PrimitiveIterator.OfLong {
+
+        int next = (root == NIL) ? NIL : getFirstNode(root);
+        int lastReturned = NIL;
+        int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != NIL;
+        }
+
+        @Override
+        public long nextLong() {
+            if (next == NIL) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturned = next;
+            next = successor(next);
+            return key(lastReturned);
+        }
+
+        // the next node is never the one that gets freed, a node with two children
+        // takes the key of its predecessor which has already been returned.
+        @Override
+        public void remove() {
+            if (lastReturned == NIL) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            deleteNode(lastReturned);
+            lastReturned = NIL;
+            expectedModCount = modCount;
+        }
+
+    }
+
+    // reads the mapped header of a file and maps the chunks holding its nodes.
+    private void readHeader() throws IOException {
+        if (header.getLong(0) != MAGIC) {
+            throw new IOException("not a tree file");
+        }
+        root = header.getInt(8);
+        size = header.getInt(12);
+        used = header.getInt(16);
+        free = header.getInt(20);
+        if (size < 0 || used < size || root < NIL || root >= used || free < NIL || free >= used) {
+            throw new IOException("corrupt tree file");
+        }
+        // a truncated file would be mapped again at its full length, with zeros
+        // in place of the lost nodes.
+        if (HEADER_BYTES + (long) used * NODE_BYTES > channel.size()) {
+            throw new IOException("corrupt tree file");
+        }
+        while ((long) chunks.length * CHUNK_NODES < used) {
+            addChunk();
+        }
+    }
+
+    // writes the root, size and free list of a mapped tree to its mapped header,
+    // after every change so flush and close never need to write it.
+    private void writeHeader() {
+        if (header == null) {
+            return;
+        }
+        header.putLong(0, MAGIC);
+        header.putInt(8, root);
+        header.putInt(12, size);
+        header.putInt(16, used);
+        header.putInt(20, free);
+    }
+
+    // adds a chunk of nodes, mapped from the end of the file or in direct memory.
+    private void addChunk() {
+        ByteBuffer chunk;
+        if (channel == null) {
+            chunk = ByteBuffer.allocateDirect(CHUNK_BYTES);
+        } else {
+            try {
+                long position = HEADER_BYTES + (long) chunks.length * CHUNK_BYTES;
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_BYTES);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        chunks = Arrays.copyOf(chunks, chunks.length + 1);
+        chunks[chunks.length - 1] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * method that takes a slot for a new red leaf, from the free list if possible
+     * and otherwise after the last used slot, adding a chunk when they are full.
+     * 
+     * @return the index of the new node.
+     */
+    private int allocate(long e, int parentNode) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = left(free);
+        } else {
+            if (used == Integer.MAX_VALUE) {
+                throw new IllegalStateException("tree is full");
+            }
+            if (used == chunks.length * CHUNK_NODES) {
+                addChunk();
+            }
+            node = used++;
+        }
+        setKey(node, e);
+        setLeft(node, NIL);
+        setRight(node, NIL);
+        setParent(node, parentNode);
+        setRed(node, true);
+        return node;
+    }
+
+    // accessors for the fields of a node record.
+    private long key(int node) {
+        return chunks[node >>> CHUNK_SHIFT].getLong((node & CHUNK_MASK) * NODE_BYTES + KEY);
+    }
+
+    private void setKey(int node, long key) {
+        chunks[node >>> CHUNK_SHIFT].putLong((node & CHUNK_MASK) * NODE_BYTES + KEY, key);
+    }
+
+    private int left(int node) {
+        return chunks[node >>> CHUNK_SHIFT].getInt((node & CHUNK_MASK) * NODE_BYTES + LEFT);
+    }
+
+    private void setLeft(int node, int child) {
+        chunks[node >>> CHUNK_SHIFT].putInt((node & CHUNK_MASK) * NODE_BYTES + LEFT, child);
+    }
+
+    private int right(int node) {
+        return chunks[node >>> CHUNK_SHIFT].getInt((node & CHUNK_MASK) * NODE_BYTES + RIGHT);
+    }
+
+    private void setRight(int node, int child) {
+        chunks[node >>> CHUNK_SHIFT].putInt((node & CHUNK_MASK) * NODE_BYTES + RIGHT, child);
+    }
+
+    private int parent(int node) {
+        return chunks[node >>> CHUNK_SHIFT].getInt((node & CHUNK_MASK) * NODE_BYTES + PARENT);
+    }
+
+    private void setParent(int node, int parentNode) {
+        chunks[node >>> CHUNK_SHIFT].putInt((node & CHUNK_MASK) * NODE_BYTES + PARENT, parentNode);
+    }
+
+    // returns true if the node is red, NIL counts as black.
+    private boolean isRed(int node) {
+        return node != NIL && chunks[node >>> CHUNK_SHIFT].get((node & CHUNK_MASK) * NODE_BYTES + COLOR) != 0;
+    }
+
+    private void setRed(int node, boolean red) {
+        chunks[node >>> CHUNK_SHIFT].put((node & CHUNK_MASK) * NODE_BYTES + COLOR, (byte) (red ? 1 : 0));
+    }
+
+    // returns the key of the node as an optional.
+    private OptionalLong keyOf(int node) {
+        return (node == NIL) ? OptionalLong.empty() : OptionalLong.of(key(node));
+    }
+
+    // returns the node holding the key or NIL.
+    private int getNode(long e) {
+        int current = root;
+        while (current != NIL) {
+            long k = key(current);
+            if (e < k) {
+                current = left(current);
+            } else if (e > k) {
+                current = right(current);
+            } else {
+                return current;
+            }
+        }
+        return NIL;
+    }
+
+    // returns the least node greater than (or equal to, if inclusive) e or NIL.
+    private int getCeilingNode(long e, boolean inclusive) {
+        int current = root;
+        int best = NIL;
+        while (current != NIL) {
+            long k = key(current);
+            if (e < k || (e == k && inclusive)) {
+                best = current;
+                current = left(current);
+            } else {
+                current = right(current);
+            }
+        }
+        return best;
+    }
+
+    // returns the greatest node less than (or equal to, if inclusive) e or NIL.
+    private int getFloorNode(long e, boolean inclusive) {
+        int current = root;
+        int best = NIL;
+        while (current != NIL) {
+            long k = key(current);
+            if (e > k || (e == k && inclusive)) {
+                best = current;
+                current = right(current);
+            } else {
+                current = left(current);
+            }
+        }
+        return best;
+    }
+
+    // checks the range and returns the least node greater than or equal to fromKey.
+    private int getRangeStart(long fromKey, long toKey) {
+        if (fromKey > toKey) {
+            throw new IllegalArgumentException();
+        }
+        return getCeilingNode(fromKey, true);
+    }
+
+    // returns the left most node of the subtree.
+    private int getFirstNode(int node) {
+        for (int child = left(node); child != NIL; child = left(node)) {
+            node = child;
+        }
+        return node;
+    }
+
+    // returns the right most node of the subtree.
+    private int getLastNode(int node) {
+        for (int child = right(node); child != NIL; child = right(node)) {
+            node = child;
+        }
+        return node;
+    }
+
+    // returns the node that follows the given node in ascending order or NIL.
+    private int successor(int node) {
+        if (right(node) != NIL) {
+            return getFirstNode(right(node));
+        }
+        int up = parent(node);
+        while (up != NIL && node == right(up)) {
+            node = up;
+            up = parent(up);
+        }
+        return up;
+    }
+
+    /**
+     * method that removes the given node from the tree, a node with two children
+     * takes the key of its predecessor and the predecessor slot is freed instead.
+     */
+    private void deleteNode(int node) {
+        if (left(node) != NIL && right(node) != NIL) {
+            int predecessor = getLastNode(left(node));
+            setKey(node, key(predecessor));
+            node = predecessor;
+        }
+
+        int replacement = (left(node) != NIL) ? left(node) : right(node);
+        if (replacement != NIL) {
+            setParent(replacement, parent(node));
+            replaceChild(parent(node), node, replacement);
+            if (!isRed(node)) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (parent(node) == NIL) {
+            root = NIL;
+        } else {
+            // a black leaf is fixed up while it is still linked to the tree.
+            if (!isRed(node)) {
+                fixAfterDeletion(node);
+            }
+            replaceChild(parent(node), node, NIL);
+        }
+        // put the slot on the free list.
+        setLeft(node, free);
+        free = node;
+        size--;
+        modCount++;
+        writeHeader();
+    }
+
+    // links the new child in place of the old child of parentNode, or as the root.
+    private void replaceChild(int parentNode, int oldChild, int newChild) {
+        if (parentNode == NIL) {
+            root = newChild;
+        } else if (left(parentNode) == oldChild) {
+            setLeft(parentNode, newChild);
+        } else {
+            setRight(parentNode, newChild);
+        }
+    }
+
+    // restores the red-black properties after a red leaf has been linked in.
+    private void fixAfterInsertion(int x) {
+        while (x != root && isRed(parent(x))) {
+            int up = parent(x);
+            int grandparent = parent(up);
+            if (up == left(grandparent)) {
+                int uncle = right(grandparent);
+                if (isRed(uncle)) {
+                    setRed(up, false);
+                    setRed(uncle, false);
+                    setRed(grandparent, true);
+                    x = grandparent;
+                } else {
+                    if (x == right(up)) {
+                        x = up;
+                        rotateLeft(x);
+                    }
+                    setRed(parent(x), false);
+                    setRed(grandparent, true);
+                    rotateRight(grandparent);
+                }
+            } else {
+                int uncle = left(grandparent);
+                if (isRed(uncle)) {
+                    setRed(up, false);
+                    setRed(uncle, false);
+                    setRed(grandparent, true);
+                    x = grandparent;
+                } else {
+                    if (x == left(up)) {
+                        x = up;
+                        rotateRight(x);
+                    }
+                    setRed(parent(x), false);
+                    setRed(grandparent, true);
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        setRed(root, false);
+    }
+
+    // restores the red-black properties after a black node has been removed.
+    private void fixAfterDeletion(int x) {
+        while (x != root && !isRed(x)) {
+            int up = parent(x);
+            if (x == left(up)) {
+                int sibling = right(up);
+                if (isRed(sibling)) {
+                    setRed(sibling, false);
+                    setRed(up, true);
+                    rotateLeft(up);
+                    sibling = right(up);
+                }
+                if (!isRed(left(sibling)) && !isRed(right(sibling))) {
+                    setRed(sibling, true);
+                    x = up;
+                } else {
+                    if (!isRed(right(sibling))) {
+                        setRed(left(sibling), false);
+                        setRed(sibling, true);
+                        rotateRight(sibling);
+                        sibling = right(up);
+                    }
+                    setRed(sibling, isRed(up));
+                    setRed(up, false);
+                    setRed(right(sibling), false);
+                    rotateLeft(up);
+                    x = root;
+                }
+            } else {
+                int sibling = left(up);
+                if (isRed(sibling)) {
+                    setRed(sibling, false);
+                    setRed(up, true);
+                    rotateRight(up);
+                    sibling = left(up);
+                }
+                if (!isRed(right(sibling)) && !isRed(left(sibling))) {
+                    setRed(sibling, true);
+                    x = up;
+                } else {
+                    if (!isRed(left(sibling))) {
+                        setRed(right(sibling), false);
+                        setRed(sibling, true);
+                        rotateLeft(sibling);
+                        sibling = left(up);
+                    }
+                    setRed(sibling, isRed(up));
+                    setRed(up, false);
+                    setRed(left(sibling), false);
+                    rotateRight(up);
+                    x = root;
+                }
+            }
+        }
+        setRed(x, false);
+    }
+
+    // rotates the subtree rooted at the given node to the left.
+    private void rotateLeft(int node) {
+        int pivot = right(node);
+        int inner = left(pivot);
+        setRight(node, inner);
+        if (inner != NIL) {
+            setParent(inner, node);
+        }
+        int up = parent(node);
+        setParent(pivot, up);
+        replaceChild(up, node, pivot);
+        setLeft(pivot, node);
+        setParent(node, pivot);
+    }
+
+    // rotates the subtree rooted at the given node to the right.
+    private void rotateRight(int node) {
+        int pivot = left(node);
+        int inner = right(pivot);
+        setLeft(node, inner);
+        if (inner != NIL) {
+            setParent(inner, node);
+        }
+        int up = parent(node);
+        setParent(pivot, up);
+        replaceChild(up, node, pivot);
+        setRight(pivot, node);
+        setParent(node, pivot);
+    }
+
+}
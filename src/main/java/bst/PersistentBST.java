@@ -0,0 +1,581 @@
+package bst;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class represents a persistent AVL tree whose nodes are never changed
+ * once they are created.
+ * An add or remove copies only the nodes on the path from the root to the
+ * changed element, rebalancing on the way back up, and then publishes the new
+ * root in one volatile write. Readers always work on the root they read first,
+ * so they never lock and never see a half done update, and snapshot returns a
+ * read-only tree sharing the current root in constant time.
+ * Adds and removes are serialized with each other, reads never wait for them.
+ * The elements are ordered using their natural ordering or by a comparator
+ * provided when the tree is constructed, like BST.
+ * 
+ * @author Kei Oshima.
+ */
+
+public class PersistentBST<E> extends AbstractSet<E> {
+
+    /*
+     * immutable node of the tree, it keeps the height and the number of nodes in
+     * its subtree.
+     */
+    private static final class Node<E> {
+        final E data;
+        final Node<E> left;
+        final Node<E> right;
+        final int height;
+        final int count;
+
+        Node(E data, Node<E> left, Node<E> right) {
+            this.data = data;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(heightOf(left), heightOf(right)) + 1;
+            this.count = countOf(left) + countOf(right) + 1;
+        }
+    }
+
+    // the current root, replaced as a whole by every add and remove.
+    private volatile Node<E> root;
+    // the comparator ordering the elements, or null for the natural ordering.
+    private final Comparator<? super E> comparator;
+    // true for a snapshot, which can not be changed.
+    private final boolean readOnly;
+
+    /**
+     * constructs a new empty tree sorted according to it's natural ordering of its
+     * elements
+     */
+    public PersistentBST() {
+        this(null);
+    }
+
+    /**
+     * constructs a new empty tree sorted according to the given comparator.
+     * 
+     * @param comparator the comparator used to order the tree, or null to use the
+     *                   natural ordering of the elements.
+     */
+    public PersistentBST(Comparator<? super E> comparator) {
+        this(comparator, null, false);
+    }
+
+    // constructor used by snapshot.
+    private PersistentBST(Comparator<? super E> comparator, Node<E> root, boolean readOnly) {
+        this.comparator = comparator;
+        this.root = root;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * method that returns a read-only tree holding the elements currently in this
+     * tree. It shares the nodes of this tree so it takes constant time, and later
+     * changes to this tree are not seen by it.
+     * 
+     * @return a read-only tree with the current elements.
+     */
+    public PersistentBST<E> snapshot() {
+        return readOnly ? this : new PersistentBST<E>(comparator, root, true);
+    }
+
+    /**
+     * Adds the specified element to the set if it is not already present.
+     * 
+     * @throws NullPointerException          if the given element is null
+     * @throws UnsupportedOperationException if this tree is a snapshot.
+     * @param e element to be added to this set.
+     * @return true if the element was not already present, false otherwise.
+     */
+    @Override
+    public synchronized boolean add(E e) {
+        checkWritable();
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        Node<E> current = root;
+        if (current == null) {
+            // compare the element with itself to make sure it can be ordered.
+            compare(e, e);
+            root = new Node<E>(e, null, null);
+            return true;
+        }
+
+        // record the path down to where the element belongs.
+        Node<E>[] path = newPath(current.height);
+        boolean[] wentLeft = new boolean[current.height];
+        int depth = 0;
+        while (current != null) {
+            int cmp = compare(e, current.data);
+            // if the element is already in the tree we don't change and return false.
+            if (cmp == 0) {
+                return false;
+            }
+            path[depth] = current;
+            wentLeft[depth++] = cmp < 0;
+            current = (cmp < 0) ? current.left : current.right;
+        }
+        root = copyPath(path, wentLeft, depth, new Node<E>(e, null, null));
+        return true;
+    }
+
+    /**
+     * Removes the specific element from the tree if it is present.
+     * 
+     * @param o-object that is to be removed from this set if it is present.
+     * @throws NullPointerException          - if the specified element is null.
+     * @throws ClassCastException            - if the specified object cannot be
+     *                                       compared with the elements in the tree.
+     * @throws UnsupportedOperationException - if this tree is a snapshot.
+     * @return true if the tree contained the specific element.
+     */
+    @Override
+    public synchronized boolean remove(Object o) {
+        checkWritable();
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        Node<E> current = root;
+        if (current == null) {
+            return false;
+        }
+
+        Node<E>[] path = newPath(current.height);
+        boolean[] wentLeft = new boolean[current.height];
+        int depth = 0;
+        int cmp;
+        while ((cmp = compare(o, current.data)) != 0) {
+            path[depth] = current;
+            wentLeft[depth++] = cmp < 0;
+            current = (cmp < 0) ? current.left : current.right;
+            if (current == null) {
+                return false;
+            }
+        }
+
+        Node<E> replacement;
+        if (current.left == null) {
+            replacement = current.right;
+        } else if (current.right == null) {
+            replacement = current.left;
+        } else {
+            // the successor takes the place of the removed node.
+            Node<E> successor = current.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            replacement = balance(successor.data, current.left, removeFirst(current.right));
+        }
+        root = copyPath(path, wentLeft, depth, replacement);
+        return true;
+    }
+
+    /**
+     * method the should return true if the set contains the specified element.
+     * 
+     * @param o- object to be checked for containment in this set.
+     * @throws NullPointerException - if the specified element is null.
+     * @throws ClassCastException   - if the specified object cannot be compared
+     *                              with the elements in the tree.
+     * @return true if this set does contain the specified element.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        Node<E> current = root;
+        while (current != null) {
+            int cmp = compare(o, current.data);
+            if (cmp == 0) {
+                return true;
+            }
+            current = (cmp < 0) ? current.left : current.right;
+        }
+        return false;
+    }
+
+    /**
+     * method that returns the number of element in the tree.
+     * 
+     * @return the number of elements in the tree.
+     */
+    @Override
+    public int size() {
+        return countOf(root);
+    }
+
+    /**
+     * removes all the elements from the set, snapshots taken before keep their
+     * elements.
+     * 
+     * @throws UnsupportedOperationException if this tree is a snapshot.
+     */
+    @Override
+    public synchronized void clear() {
+        checkWritable();
+        root = null;
+    }
+
+    /**
+     * method that returns the first/lowest element currently in the tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the first (lowest) element currently in the tree.
+     */
+    public E first() {
+        Node<E> current = root;
+        if (current == null) {
+            throw new NoSuchElementException();
+        }
+        while (current.left != null) {
+            current = current.left;
+        }
+        return current.data;
+    }
+
+    /**
+     * method that returns the last/highest element in this tree.
+     * 
+     * @throws NoSuchElementException - if this set is empty.
+     * @return the last/highest element currently in the tree.
+     */
+    public E last() {
+        Node<E> current = root;
+        if (current == null) {
+            throw new NoSuchElementException();
+        }
+        while (current.right != null) {
+            current = current.right;
+        }
+        return current.data;
+    }
+
+    /**
+     * method that returns the least element in this tree greater than or equal to
+     * the given element. Or null if the element does not exist.
+     * 
+     * @param e - the value that we want to match.
+     * @return the least element that is greater than or equal, or null if there is
+     *         no such element.
+     */
+    public E ceiling(E e) {
+        return getCeiling(root, e, true);
+    }
+
+    /**
+     * method that returns the least element in this set that is strictly greater
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @return the least element greater than e or null if there is no such element.
+     */
+    public E higher(E e) {
+        return getCeiling(root, e, false);
+    }
+
+    /**
+     * method that returns the greatest element in this set less than or equal to
+     * the given element or null if no such element exist.
+     * 
+     * @param e- the value we want to match.
+     * @return the greatest element less than or equal to the parameter, or null if
+     *         no such element exist.
+     */
+    public E floor(E e) {
+        return getFloor(root, e, true);
+    }
+
+    /**
+     * method that returns the greatest element in this set that is strictly less
+     * than the given element or null if no such element exist.
+     * 
+     * @param e - the value we want to match.
+     * @return the greatest element less than e or null if there is no such element.
+     */
+    public E lower(E e) {
+        return getFloor(root, e, false);
+    }
+
+    /**
+     * method that returns a collection whose elements are in the range of
+     * fromElement to toElement both being inclusive, in ascending order.
+     * 
+     * @param fromElement - low endpoint (inclusive of the returned collection.
+     * @param toElement-  high endpoint (inclusive) of the returned collection.
+     * @throws NullPointerException     - if fromElement or toElement is null.
+     * @throws IllegalArgumentException - if fromElement is greater than toElement.
+     * @return returns a collection containing a portion of the tree whose elements
+     *         range fromElement to toElement inclusive
+     */
+    public ArrayList<E> getRange(E fromElement, E toElement) {
+        if (fromElement == null || toElement == null) {
+            throw new NullPointerException();
+        }
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        ArrayList<E> range = new ArrayList<E>();
+        // stack of the nodes whose element and right subtree are still to visit.
+        ArrayList<Node<E>> stack = new ArrayList<Node<E>>();
+        Node<E> current = root;
+        while (current != null || !stack.isEmpty()) {
+            if (current != null) {
+                // skip the left subtree when all of it is below the range.
+                if (compare(current.data, fromElement) < 0) {
+                    current = current.right;
+                } else {
+                    stack.add(current);
+                    current = current.left;
+                }
+            } else {
+                current = stack.remove(stack.size() - 1);
+                if (compare(current.data, toElement) > 0) {
+                    break;
+                }
+                range.add(current.data);
+                current = current.right;
+            }
+        }
+        return range;
+    }
+
+    /**
+     * method that returns the height of the tree.
+     * 
+     * @return the height of the tree or 0 if the tree is empty.
+     */
+    public int height() {
+        Node<E> current = root;
+        return (current == null) ? 0 : current.height - 1;
+    }
+
+    /**
+     * method that checks that the elements are in order and that the heights of
+     * the children of every node differ by at most one.
+     *
+     * @throws IllegalStateException if a rule is broken.
+     */
+    void checkInvariants() {
+        E last = null;
+        // stack of the nodes whose element and right subtree are still to visit.
+        ArrayList<Node<E>> stack = new ArrayList<Node<E>>();
+        Node<E> current = root;
+        while (current != null || !stack.isEmpty()) {
+            if (current != null) {
+                if (Math.abs(heightOf(current.left) - heightOf(current.right)) > 1) {
+                    throw new IllegalStateException("unbalanced node " + current.data);
+                }
+                stack.add(current);
+                current = current.left;
+            } else {
+                current = stack.remove(stack.size() - 1);
+                if (last != null && compare(last, current.data) >= 0) {
+                    throw new IllegalStateException("elements out of order at " + current.data);
+                }
+                last = current.data;
+                current = current.right;
+            }
+        }
+    }
+
+    /**
+     * method that returns the comparator used to order the elements in this tree.
+     * 
+     * @return the comparator or null if the tree uses the natural ordering of its
+     *         elements.
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * method that returns an iterator over the elements in this tree in ascending
+     * order. The iterator walks the root it was created with, so it never sees
+     * later changes and never throws ConcurrentModificationException. Remove is
+     * supported unless this tree is a snapshot.
+     * 
+     * @return an iterator over the elements in the set in ascending order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new InorderIterator(root);
+    }
+
+    /*
+     * iterator that walks a fixed root in ascending order using a stack.
+     */
+    private class InorderIterator implements Iterator<E> {
+
+        final ArrayList<Node<E>> stack = new ArrayList<Node<E>>();
+        E lastReturned = null;
+
+        InorderIterator(Node<E> start) {
+            pushLeft(start);
+        }
+
+        // pushes the node and its left spine.
+        void pushLeft(Node<E> node) {
+            for (; node != null; node = node.left) {
+                stack.add(node);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<E> node = stack.remove(stack.size() - 1);
+            pushLeft(node.right);
+            lastReturned = node.data;
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            PersistentBST.this.remove(lastReturned);
+            lastReturned = null;
+        }
+
+    }
+
+    // throws UnsupportedOperationException when this tree is a snapshot.
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * method that compares two elements using the comparator of the tree, or their
+     * natural ordering if the tree has no comparator.
+     * 
+     * @throws ClassCastException if the elements cannot be compared.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        if (comparator == null) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return comparator.compare((E) a, (E) b);
+    }
+
+    // returns an array for the nodes on a path of the given length.
+    @SuppressWarnings("unchecked")
+    private static <E> Node<E>[] newPath(int length) {
+        return (Node<E>[]) new Node<?>[length];
+    }
+
+    private static int heightOf(Node<?> node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    private static int countOf(Node<?> node) {
+        return (node == null) ? 0 : node.count;
+    }
+
+    /**
+     * method that copies the nodes on the recorded path from the bottom up, giving
+     * every copy the new child it went through and rebalancing it.
+     * 
+     * @return the new root.
+     */
+    private Node<E> copyPath(Node<E>[] path, boolean[] wentLeft, int depth, Node<E> child) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node<E> node = path[i];
+            child = wentLeft[i] ? balance(node.data, child, node.right) : balance(node.data, node.left, child);
+        }
+        return child;
+    }
+
+    // returns a copy of the subtree without its first node.
+    private Node<E> removeFirst(Node<E> node) {
+        Node<E>[] path = newPath(node.height);
+        int depth = 0;
+        for (; node.left != null; node = node.left) {
+            path[depth++] = node;
+        }
+        Node<E> child = node.right;
+        for (int i = depth - 1; i >= 0; i--) {
+            child = balance(path[i].data, child, path[i].right);
+        }
+        return child;
+    }
+
+    /**
+     * method that creates a node with the given element and children, rotating
+     * once or twice when the heights of the children differ by more than one.
+     */
+    private Node<E> balance(E data, Node<E> left, Node<E> right) {
+        if (heightOf(left) > heightOf(right) + 1) {
+            if (heightOf(left.left) >= heightOf(left.right)) {
+                return new Node<E>(left.data, left.left, new Node<E>(data, left.right, right));
+            }
+            Node<E> pivot = left.right;
+            return new Node<E>(pivot.data, new Node<E>(left.data, left.left, pivot.left),
+                    new Node<E>(data, pivot.right, right));
+        }
+        if (heightOf(right) > heightOf(left) + 1) {
+            if (heightOf(right.right) >= heightOf(right.left)) {
+                return new Node<E>(right.data, new Node<E>(data, left, right.left), right.right);
+            }
+            Node<E> pivot = right.left;
+            return new Node<E>(pivot.data, new Node<E>(data, left, pivot.left),
+                    new Node<E>(right.data, pivot.right, right.right));
+        }
+        return new Node<E>(data, left, right);
+    }
+
+    // returns the least element greater than (or equal to, if inclusive) e or null.
+    private E getCeiling(Node<E> current, E e, boolean inclusive) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        E best = null;
+        while (current != null) {
+            int cmp = compare(e, current.data);
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                best = current.data;
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        return best;
+    }
+
+    // returns the greatest element less than (or equal to, if inclusive) e or null.
+    private E getFloor(Node<E> current, E e, boolean inclusive) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        E best = null;
+        while (current != null) {
+            int cmp = compare(e, current.data);
+            if (cmp > 0 || (cmp == 0 && inclusive)) {
+                best = current.data;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return best;
+    }
+
+}
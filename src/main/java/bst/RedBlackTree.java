@@ -0,0 +1,432 @@
+package bst;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * This class holds the red-black logic shared by the trees of unboxed keys,
+ * IntBST and LongBST.
+ * The subclasses add the key to the node and do every comparison themselves,
+ * so the keys are never boxed. This class links, unlinks and rotates the
+ * nodes and keeps the red-black properties, none of which looks at the keys.
+ * 
+ * @author Kei Oshima.
+ */
+
+abstract class RedBlackTree<N extends RedBlackTree.Node<N>> {
+
+    // node class of the trees, the subclasses add the key.
+    static class Node<N extends Node<N>> {
+        N left;
+        N right;
+        N parent;
+        boolean red = true;
+
+        // node constructor that takes the parent of the new node.
+        Node(N parent) {
+            this.parent = parent;
+        }
+
+    }
+
+    // variables needed through the program.
+    N root = null;
+    int size = 0;
+    // number of structural modifications, used by the iterators to fail fast.
+    int modCount = 0;
+
+    /**
+     * method that returns the number of keys in the tree.
+     * 
+     * @return the number of keys in the tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * checks to see if the given set is empty or not
+     * 
+     * @return true if the set contains no keys.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * removes all the keys from the set.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * method that returns the height of the tree. The tree is walked once with
+     * the parent links, keeping track of the depth instead of using a stack.
+     * 
+     * @return the height of the tree or 0 if the tree is empty.
+     */
+    public int height() {
+        N current = root;
+        N previous = null;
+        int depth = 0;
+        int height = 0;
+
+        while (current != null) {
+            N next;
+            // we came down to this node, visit the left child first.
+            if (previous == current.parent) {
+                height = Math.max(height, depth);
+                next = (current.left != null) ? current.left
+                        : (current.right != null) ? current.right : current.parent;
+            }
+            // we came back from the left child, visit the right child.
+            else if (previous == current.left && current.right != null) {
+                next = current.right;
+            }
+            // both children are done, go back up.
+            else {
+                next = current.parent;
+            }
+
+            if (next == current.parent) {
+                depth--;
+            } else {
+                depth++;
+            }
+            previous = current;
+            current = next;
+        }
+        return height;
+    }
+
+    /**
+     * method that checks the structure of the tree: the parent links, the size
+     * and the red-black rules. The tree is walked once using the parent links. The
+     * order of the keys is left to the subclasses. Used by the tests.
+     * 
+     * @throws IllegalStateException at the first rule that is broken.
+     */
+    void checkInvariants() {
+        if (root != null && (root.parent != null || root.red)) {
+            throw new IllegalStateException("root has a parent or is red");
+        }
+        int visited = 0;
+        // black nodes from the root down to the current node, and on every path.
+        int blackDepth = 0;
+        int blackHeight = -1;
+
+        N current = root;
+        N previous = null;
+        while (current != null) {
+            N next;
+            if (previous == current.parent) {
+                // first visit of the node.
+                visited++;
+                if ((current.left != null && current.left.parent != current)
+                        || (current.right != null && current.right.parent != current)) {
+                    throw new IllegalStateException("broken parent link");
+                }
+                if (current.red && (isRed(current.left) || isRed(current.right))) {
+                    throw new IllegalStateException("red node with a red child");
+                }
+                if (!current.red) {
+                    blackDepth++;
+                }
+                // a missing child ends a path, all paths have the same black nodes.
+                if (current.left == null || current.right == null) {
+                    if (blackHeight < 0) {
+                        blackHeight = blackDepth;
+                    } else if (blackHeight != blackDepth) {
+                        throw new IllegalStateException("unequal black height");
+                    }
+                }
+                next = (current.left != null) ? current.left
+                        : (current.right != null) ? current.right : current.parent;
+            } else if (previous == current.left && current.right != null) {
+                next = current.right;
+            } else {
+                next = current.parent;
+            }
+
+            // last visit of the node.
+            if (next == current.parent && !current.red) {
+                blackDepth--;
+            }
+            previous = current;
+            current = next;
+        }
+        if (visited != size) {
+            throw new IllegalStateException("size is " + size + " but the tree has " + visited + " nodes");
+        }
+    }
+
+    /**
+     * method that copies the key of one node into another, used when a node with
+     * two children takes the key of its predecessor.
+     * 
+     * @param from the node whose key is copied.
+     * @param to   the node that takes the key.
+     */
+    abstract void copyKey(N from, N to);
+
+    /**
+     * helper method that returns the level whose nodes are red when a tree of n
+     * keys is built bottom up, the deepest level if it is incomplete.
+     */
+    static int redLevel(int n) {
+        int redLevel = 0;
+        for (int m = n - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+        return redLevel;
+    }
+
+    /*
+     * base of the key iterators, walks the tree in ascending order using the
+     * parent links. The subclasses return the key of nextNode without boxing.
+     */
+    abstract class NodeIterator {
+
+        N next = (root == null) ? null : getFirstNode(root);
+        N lastReturned = null;
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        // returns the next node and moves past it.
+        N nextNode() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturned = next;
+            next = successor(next);
+            return lastReturned;
+        }
+
+        // the next node is never the one that gets unlinked, a node with two children
+        // takes the key of its predecessor which has already been returned.
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            deleteNode(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+    }
+
+    // returns the left most node of the subtree.
+    static <N extends Node<N>> N getFirstNode(N node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    // returns the right most node of the subtree.
+    static <N extends Node<N>> N getLastNode(N node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    // returns the node that follows the given node in ascending order or null.
+    static <N extends Node<N>> N successor(N node) {
+        if (node.right != null) {
+            return getFirstNode(node.right);
+        }
+        N parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /**
+     * method that removes the given node from the tree, a node with two children
+     * takes the key of its predecessor and the predecessor node is removed
+     * instead.
+     */
+    void deleteNode(N node) {
+        if (node.left != null && node.right != null) {
+            N predecessor = getLastNode(node.left);
+            copyKey(predecessor, node);
+            node = predecessor;
+        }
+
+        N replacement = (node.left != null) ? node.left : node.right;
+        if (replacement != null) {
+            replacement.parent = node.parent;
+            replaceChild(node.parent, node, replacement);
+            node.left = node.right = node.parent = null;
+            if (!node.red) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (node.parent == null) {
+            root = null;
+        } else {
+            // a black leaf is fixed up while it is still linked to the tree.
+            if (!node.red) {
+                fixAfterDeletion(node);
+            }
+            replaceChild(node.parent, node, null);
+            node.parent = null;
+        }
+        size--;
+        modCount++;
+    }
+
+    // links the new child in place of the old child of parent, or as the root.
+    private void replaceChild(N parent, N oldChild, N newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+
+    // restores the red-black properties after a red leaf has been linked in.
+    void fixAfterInsertion(N x) {
+        while (x != root && isRed(x.parent)) {
+            N grandparent = x.parent.parent;
+            if (x.parent == grandparent.left) {
+                N uncle = grandparent.right;
+                if (isRed(uncle)) {
+                    x.parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    x = grandparent;
+                } else {
+                    if (x == x.parent.right) {
+                        x = x.parent;
+                        rotateLeft(x);
+                    }
+                    x.parent.red = false;
+                    grandparent.red = true;
+                    rotateRight(grandparent);
+                }
+            } else {
+                N uncle = grandparent.left;
+                if (isRed(uncle)) {
+                    x.parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    x = grandparent;
+                } else {
+                    if (x == x.parent.left) {
+                        x = x.parent;
+                        rotateRight(x);
+                    }
+                    x.parent.red = false;
+                    grandparent.red = true;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        root.red = false;
+    }
+
+    // restores the red-black properties after a black node has been removed.
+    private void fixAfterDeletion(N x) {
+        while (x != root && !isRed(x)) {
+            if (x == x.parent.left) {
+                N sibling = x.parent.right;
+                if (isRed(sibling)) {
+                    sibling.red = false;
+                    x.parent.red = true;
+                    rotateLeft(x.parent);
+                    sibling = x.parent.right;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.red = true;
+                    x = x.parent;
+                } else {
+                    if (!isRed(sibling.right)) {
+                        sibling.left.red = false;
+                        sibling.red = true;
+                        rotateRight(sibling);
+                        sibling = x.parent.right;
+                    }
+                    sibling.red = x.parent.red;
+                    x.parent.red = false;
+                    sibling.right.red = false;
+                    rotateLeft(x.parent);
+                    x = root;
+                }
+            } else {
+                N sibling = x.parent.left;
+                if (isRed(sibling)) {
+                    sibling.red = false;
+                    x.parent.red = true;
+                    rotateRight(x.parent);
+                    sibling = x.parent.left;
+                }
+                if (!isRed(sibling.right) && !isRed(sibling.left)) {
+                    sibling.red = true;
+                    x = x.parent;
+                } else {
+                    if (!isRed(sibling.left)) {
+                        sibling.right.red = false;
+                        sibling.red = true;
+                        rotateLeft(sibling);
+                        sibling = x.parent.left;
+                    }
+                    sibling.red = x.parent.red;
+                    x.parent.red = false;
+                    sibling.left.red = false;
+                    rotateRight(x.parent);
+                    x = root;
+                }
+            }
+        }
+        x.red = false;
+    }
+
+    // rotates the subtree rooted at the given node to the left.
+    private void rotateLeft(N node) {
+        N pivot = node.right;
+        node.right = pivot.left;
+        if (pivot.left != null) {
+            pivot.left.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node.parent, node, pivot);
+        pivot.left = node;
+        node.parent = pivot;
+    }
+
+    // rotates the subtree rooted at the given node to the right.
+    private void rotateRight(N node) {
+        N pivot = node.left;
+        node.left = pivot.right;
+        if (pivot.right != null) {
+            pivot.right.parent = node;
+        }
+        pivot.parent = node.parent;
+        replaceChild(node.parent, node, pivot);
+        pivot.right = node;
+        node.parent = pivot;
+    }
+
+    // returns true if the node is red, empty subtrees count as black.
+    private static boolean isRed(Node<?> node) {
+        return node != null && node.red;
+    }
+
+}
@@ -0,0 +1,258 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests that run the same random operations on a BPlusBST and on a TreeSet and
+ * compare the results, checking the structure of the tree after every change.
+ * The sizes are picked so leaves and inner nodes split, borrow and merge around
+ * the 64 entries a node holds.
+ *
+ * @author Kei Oshima.
+ */
+
+class BPlusBSTDifferentialTest {
+
+    private static final int STEPS = 30_000;
+    // enough keys for two levels of inner nodes.
+    private static final int KEYS = 6_000;
+    private static final int NODE_CAPACITY = 64;
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void randomUpdates(boolean reversed) {
+        Random random = new Random(reversed ? 2 : 1);
+        Comparator<Integer> comparator = reversed ? Comparator.reverseOrder() : null;
+        BPlusBST<Integer> tree = new BPlusBST<>(comparator);
+        TreeSet<Integer> expected = new TreeSet<>(comparator);
+        int maxHeight = 0;
+
+        for (int step = 0; step < STEPS; step++) {
+            int key = random.nextInt(KEYS);
+            // grow the tree for the first half of the steps and shrink it after.
+            boolean growing = step < STEPS / 2;
+            switch (random.nextInt(10)) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                if (growing || random.nextBoolean()) {
+                    assertEquals(expected.add(key), tree.add(key));
+                } else {
+                    assertEquals(expected.remove(key), tree.remove(key));
+                }
+                break;
+            case 4:
+            case 5:
+                assertEquals(expected.remove(key), tree.remove(key));
+                break;
+            case 6: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(200));
+                if (growing) {
+                    assertEquals(expected.addAll(keys), tree.addAll(keys));
+                } else {
+                    assertEquals(expected.removeAll(keys), tree.removeAll(keys));
+                }
+                break;
+            }
+            case 7:
+                if (random.nextInt(20) == 0) {
+                    removeWhileIterating(expected.iterator(), tree.iterator(), key);
+                }
+                break;
+            case 8: {
+                int to = reversed ? key - random.nextInt(200) : key + random.nextInt(200);
+                assertEquals(new ArrayList<>(expected.subSet(key, true, to, true)), tree.getRange(key, to));
+                break;
+            }
+            default:
+                if (random.nextInt(2_000) == 0) {
+                    expected.clear();
+                    tree.clear();
+                }
+                break;
+            }
+
+            tree.checkInvariants();
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.isEmpty(), tree.isEmpty());
+            assertLookups(expected, tree, random.nextInt(KEYS + 20) - 10);
+            if (step % 500 == 0) {
+                assertIterableEquals(expected, tree);
+                assertEquals(expected, tree);
+            }
+            maxHeight = Math.max(maxHeight, tree.height());
+        }
+        assertEquals(2, maxHeight);
+    }
+
+    @Test
+    void leafSplitBorrowAndMerge() {
+        BPlusBST<Integer> tree = new BPlusBST<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        // a full leaf is the root.
+        for (int i = 0; i < NODE_CAPACITY; i++) {
+            add(expected, tree, i);
+        }
+        assertEquals(0, tree.height());
+
+        // one more splits it into leaves of 32 and 33.
+        add(expected, tree, NODE_CAPACITY);
+        assertEquals(1, tree.height());
+        add(expected, tree, NODE_CAPACITY + 1);
+
+        // the left leaf drops below 32 and borrows from the right one of 34.
+        remove(expected, tree, 0);
+        assertEquals(1, tree.height());
+        assertEquals(Integer.valueOf(1), tree.first());
+        assertEquals(Integer.valueOf(33), tree.ceiling(33));
+        assertEquals(Integer.valueOf(32), tree.lower(33));
+
+        // both leaves now hold 32, so the next removal merges them and the tree is
+        // a single leaf again.
+        remove(expected, tree, NODE_CAPACITY + 1);
+        remove(expected, tree, 1);
+        assertEquals(0, tree.height());
+        assertIterableEquals(expected, tree);
+
+        // the same from the right end, borrowing from the left leaf.
+        add(expected, tree, 0);
+        add(expected, tree, 1);
+        assertEquals(1, tree.height());
+        add(expected, tree, -1);
+        remove(expected, tree, NODE_CAPACITY);
+        remove(expected, tree, NODE_CAPACITY - 1);
+        assertEquals(1, tree.height());
+        remove(expected, tree, NODE_CAPACITY - 2);
+        assertEquals(0, tree.height());
+        assertIterableEquals(expected, tree);
+    }
+
+    @Test
+    void innerSplitBorrowAndMerge() {
+        BPlusBST<Integer> tree = new BPlusBST<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        // ascending keys until the root inner node splits and the tree has two
+        // inner levels.
+        int next = 0;
+        while (tree.height() < 2) {
+            add(expected, tree, next++);
+        }
+        // and as many descending keys, so inner nodes on the left split as well.
+        for (int low = -1; low >= -next; low--) {
+            add(expected, tree, low);
+        }
+        assertIterableEquals(expected, tree);
+        assertEquals(new ArrayList<>(expected.subSet(-100, true, 100, true)), tree.getRange(-100, 100));
+
+        // removing in a random order borrows between and merges inner nodes until
+        // the tree is empty again.
+        List<Integer> keys = new ArrayList<>(expected);
+        Collections.shuffle(keys, new Random(3));
+        int height = tree.height();
+        for (int key : keys) {
+            remove(expected, tree, key);
+            assertTrue(tree.height() <= height);
+            height = tree.height();
+            if (expected.size() % 997 == 0) {
+                assertIterableEquals(expected, tree);
+            }
+        }
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.height());
+    }
+
+    @Test
+    void iteratorRemovesAcrossLeaves() {
+        BPlusBST<Integer> tree = new BPlusBST<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20 * NODE_CAPACITY; i++) {
+            add(expected, tree, i);
+        }
+        // removing every element but a few merges most leaves while iterating.
+        Iterator<Integer> iterator = tree.iterator();
+        Iterator<Integer> reference = expected.iterator();
+        while (reference.hasNext()) {
+            int key = reference.next();
+            assertEquals(Integer.valueOf(key), iterator.next());
+            if (key % 100 != 0) {
+                iterator.remove();
+                reference.remove();
+                tree.checkInvariants();
+            }
+        }
+        assertFalse(iterator.hasNext());
+        assertIterableEquals(expected, tree);
+
+        Iterator<Integer> failing = tree.iterator();
+        assertThrows(IllegalStateException.class, failing::remove);
+        failing.next();
+        tree.add(-1);
+        assertThrows(ConcurrentModificationException.class, failing::next);
+    }
+
+    private static void add(TreeSet<Integer> expected, BPlusBST<Integer> tree, int key) {
+        assertEquals(expected.add(key), tree.add(key));
+        tree.checkInvariants();
+        assertLookups(expected, tree, key);
+    }
+
+    private static void remove(TreeSet<Integer> expected, BPlusBST<Integer> tree, int key) {
+        assertEquals(expected.remove(key), tree.remove(key));
+        tree.checkInvariants();
+        assertLookups(expected, tree, key);
+    }
+
+    // removes the elements divisible by 3 after the given key through both
+    // iterators, comparing the elements they return.
+    private static void removeWhileIterating(Iterator<Integer> expected, Iterator<Integer> actual, int key) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            int next = expected.next();
+            assertEquals(next, actual.next());
+            if (next >= key && next % 3 == 0) {
+                expected.remove();
+                actual.remove();
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private static void assertLookups(TreeSet<Integer> expected, BPlusBST<Integer> tree, int key) {
+        assertEquals(expected.contains(key), tree.contains(key));
+        assertEquals(expected.ceiling(key), tree.ceiling(key));
+        assertEquals(expected.floor(key), tree.floor(key));
+        assertEquals(expected.lower(key), tree.lower(key));
+        assertEquals(expected.higher(key), tree.higher(key));
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), tree.first());
+            assertEquals(expected.last(), tree.last());
+        }
+    }
+
+    private static List<Integer> randomKeys(Random random, int count) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(random.nextInt(KEYS));
+        }
+        return keys;
+    }
+
+}
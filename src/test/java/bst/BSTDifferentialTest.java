@@ -0,0 +1,549 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Tests that run the same random operations on a BST and on a TreeSet and
+ * compare the results, checking the structure of the tree and the rules of its
+ * balance mode after every change.
+ *
+ * @author Kei Oshima.
+ */
+
+class BSTDifferentialTest {
+
+    private static final int STEPS = 20_000;
+    private static final int KEYS = 600;
+
+    @ParameterizedTest
+    @EnumSource(BST.Balance.class)
+    void randomUpdates(BST.Balance balance) {
+        Random random = new Random(1 + balance.ordinal());
+        BST<Integer> tree = new BST<>(balance);
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int step = 0; step < STEPS; step++) {
+            int key = random.nextInt(KEYS);
+            switch (random.nextInt(16)) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                assertEquals(expected.add(key), tree.add(key));
+                break;
+            case 4:
+            case 5:
+                assertEquals(expected.remove(key), tree.remove(key));
+                break;
+            case 6: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(40));
+                assertEquals(expected.addAll(keys), tree.addAll(keys));
+                break;
+            }
+            case 7: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(20));
+                assertEquals(expected.removeAll(keys), tree.removeAll(keys));
+                break;
+            }
+            case 8:
+                if (random.nextBoolean()) {
+                    assertEquals(expected.pollFirst(), tree.pollFirst());
+                } else {
+                    assertEquals(expected.pollLast(), tree.pollLast());
+                }
+                break;
+            case 9: {
+                int to = key + random.nextInt(20);
+                NavigableSet<Integer> range = expected.subSet(key, true, to, true);
+                int removed = range.size();
+                range.clear();
+                assertEquals(removed, tree.removeRange(key, to));
+                break;
+            }
+            case 10: {
+                int to = key + 40;
+                assertEquals(expected.removeIf(k -> k >= key && k < to && k % 3 == 0),
+                        tree.removeIf(k -> k >= key && k < to && k % 3 == 0));
+                if (random.nextInt(10) == 0) {
+                    // sometimes enough matches for the tree to be rebuilt.
+                    int modulus = 2 + random.nextInt(30);
+                    assertEquals(expected.removeIf(k -> k % modulus == 0), tree.removeIf(k -> k % modulus == 0));
+                }
+                break;
+            }
+            case 11:
+                removeWhileIterating(expected.iterator(), tree.iterator(), key);
+                break;
+            case 12:
+                removeWhileIterating(expected.descendingIterator(), tree.descendingIterator(), key);
+                break;
+            case 13: {
+                // keep everything but a few keys.
+                Set<Integer> keep = new HashSet<>(expected);
+                keep.removeAll(randomKeys(random, 10));
+                assertEquals(expected.retainAll(keep), tree.retainAll(keep));
+                break;
+            }
+            case 14:
+                tree.rebalance();
+                break;
+            default:
+                if (random.nextInt(200) == 0) {
+                    expected.clear();
+                    tree.clear();
+                }
+                break;
+            }
+
+            tree.checkInvariants();
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.isEmpty(), tree.isEmpty());
+            assertLookups(expected, tree, random.nextInt(KEYS + 20) - 10);
+            if (step % 200 == 0) {
+                assertIterableEquals(expected, tree);
+                assertEquals(expected.hashCode(), tree.hashCode());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BST.Balance.class)
+    void views(BST.Balance balance) {
+        Random random = new Random(11 + balance.ordinal());
+        BST<Integer> tree = new BST<>(balance);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int key : randomKeys(random, 300)) {
+            tree.add(key);
+            expected.add(key);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            int low = random.nextInt(KEYS);
+            int high = low + random.nextInt(KEYS - low);
+            boolean lowInclusive = random.nextBoolean();
+            boolean highInclusive = random.nextBoolean();
+
+            NavigableSet<Integer> view;
+            NavigableSet<Integer> expectedView;
+            switch (random.nextInt(4)) {
+            case 0:
+                view = tree.subSet(low, lowInclusive, high, highInclusive);
+                expectedView = expected.subSet(low, lowInclusive, high, highInclusive);
+                break;
+            case 1:
+                view = tree.headSet(high, highInclusive);
+                expectedView = expected.headSet(high, highInclusive);
+                break;
+            case 2:
+                view = tree.tailSet(low, lowInclusive);
+                expectedView = expected.tailSet(low, lowInclusive);
+                break;
+            default:
+                view = tree.subSet(low, lowInclusive, high, highInclusive).descendingSet();
+                expectedView = expected.subSet(low, lowInclusive, high, highInclusive).descendingSet();
+                break;
+            }
+            assertSameView(expectedView, view, random);
+
+            // a view of the view.
+            if (!expectedView.isEmpty()) {
+                int first = expectedView.first();
+                assertSameView(expectedView.tailSet(first, false), view.tailSet(first, false), random);
+                assertSameView(expectedView.headSet(first, true), view.headSet(first, true), random);
+            }
+
+            // changes made through the view show up in the tree.
+            int key = low + random.nextInt(high - low + 1);
+            if (expectedView.contains(key) || isInView(expectedView, key)) {
+                if (random.nextBoolean()) {
+                    assertEquals(expectedView.add(key), view.add(key));
+                } else {
+                    assertEquals(expectedView.remove(key), view.remove(key));
+                }
+            }
+            if (random.nextInt(10) == 0) {
+                assertEquals(expectedView.pollFirst(), view.pollFirst());
+            }
+            if (!isInView(expectedView, high + 1)) {
+                assertThrows(IllegalArgumentException.class, () -> view.add(high + 1));
+            }
+
+            tree.checkInvariants();
+            assertIterableEquals(expected, tree);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BST.Balance.class)
+    void setOperations(BST.Balance balance) {
+        Random random = new Random(21 + balance.ordinal());
+        // the larger trees are merged by parallel tasks.
+        for (int size : new int[] { 0, 1, 50, 3_000, 40_000 }) {
+            BST<Integer> a = new BST<>(balance);
+            BST<Integer> b = new BST<>(balance);
+            // b is ordered the other way, so it is sorted again before the merge.
+            BST<Integer> reversed = new BST<>(Comparator.reverseOrder(), balance);
+            for (int i = 0; i < size; i++) {
+                a.add(random.nextInt(3 * size));
+                int key = random.nextInt(3 * size);
+                b.add(key);
+                reversed.add(key);
+            }
+            TreeSet<Integer> expectedA = new TreeSet<>(a);
+            TreeSet<Integer> expectedB = new TreeSet<>(b);
+
+            TreeSet<Integer> union = new TreeSet<>(expectedA);
+            union.addAll(expectedB);
+            TreeSet<Integer> intersection = new TreeSet<>(expectedA);
+            intersection.retainAll(expectedB);
+            TreeSet<Integer> difference = new TreeSet<>(expectedA);
+            difference.removeAll(expectedB);
+
+            for (BST<Integer> other : List.of(b, reversed)) {
+                assertSameTree(union, a.union(other));
+                assertSameTree(intersection, a.intersection(other));
+                assertSameTree(difference, a.difference(other));
+            }
+            assertIterableEquals(expectedA, a);
+            assertIterableEquals(expectedB, b);
+
+            BST<Integer> changed = new BST<>(balance);
+            changed.addAll(a);
+            changed.retainAll(b);
+            assertSameTree(intersection, changed);
+            changed.addAll(b);
+            changed.removeAll(b);
+            assertTrue(changed.isEmpty());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BST.Balance.class)
+    void setOperationsOfUnequalSizes(BST.Balance balance) {
+        Random random = new Random(41 + balance.ordinal());
+        BST<Integer> large = new BST<>(balance);
+        for (int i = 0; i < 5_000; i++) {
+            large.add(random.nextInt(15_000));
+        }
+        TreeSet<Integer> expectedLarge = new TreeSet<>(large);
+        // the small trees are looked up in the large one or added to a copy of it.
+        for (int size : new int[] { 0, 1, 10, 100 }) {
+            BST<Integer> small = new BST<>(balance);
+            BST<Integer> reversed = new BST<>(Comparator.reverseOrder(), balance);
+            for (int i = 0; i < size; i++) {
+                int key = random.nextInt(15_000);
+                small.add(key);
+                reversed.add(key);
+            }
+            TreeSet<Integer> expectedSmall = new TreeSet<>(small);
+
+            TreeSet<Integer> union = new TreeSet<>(expectedLarge);
+            union.addAll(expectedSmall);
+            TreeSet<Integer> intersection = new TreeSet<>(expectedLarge);
+            intersection.retainAll(expectedSmall);
+            for (BST<Integer> other : List.of(small, reversed)) {
+                assertSameTree(union, large.union(other));
+                assertSameTree(intersection, large.intersection(other));
+                TreeSet<Integer> difference = new TreeSet<>(expectedLarge);
+                difference.removeAll(expectedSmall);
+                assertSameTree(difference, large.difference(other));
+            }
+            assertSameTree(union, small.union(large));
+            assertSameTree(intersection, small.intersection(large));
+            TreeSet<Integer> difference = new TreeSet<>(expectedSmall);
+            difference.removeAll(expectedLarge);
+            assertSameTree(difference, small.difference(large));
+
+            BST<Integer> changed = new BST<>(balance);
+            changed.addAll(large);
+            changed.retainAll(small);
+            assertSameTree(intersection, changed);
+            changed = new BST<>(balance);
+            changed.addAll(small);
+            changed.retainAll(large);
+            assertSameTree(intersection, changed);
+            changed.addAll(small);
+            changed.removeAll(large);
+            assertSameTree(difference, changed);
+            assertIterableEquals(expectedLarge, large);
+        }
+
+        // every result keeps the instance of this tree for equal elements, on the
+        // lookup paths and on the merge path.
+        for (int size : new int[] { 10, 5_000 }) {
+            BST<String> mine = new BST<>(balance);
+            BST<String> theirs = new BST<>(balance);
+            for (int i = 0; i < 5_000; i++) {
+                mine.add(new String("k" + i));
+            }
+            for (int i = 0; i < size; i++) {
+                theirs.add(new String("k" + 2 * i));
+            }
+            for (BST<String> first : List.of(mine, theirs)) {
+                BST<String> second = (first == mine) ? theirs : mine;
+                assertKeepsInstances(first, first.union(second));
+                assertKeepsInstances(first, first.intersection(second));
+                assertKeepsInstances(first, first.difference(second));
+                BST<String> retained = new BST<>(balance);
+                retained.addAll(first);
+                retained.retainAll(second);
+                assertKeepsInstances(first, retained);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BST.Balance.class)
+    void listenerSeesEveryIterator(BST.Balance balance) {
+        BST<Integer> tree = new BST<>(balance);
+        for (int i = 0; i < 100; i++) {
+            tree.add(i);
+        }
+        int[] iterators = new int[1];
+        tree.setListener((operation, nanos, comparisons) -> {
+            if (operation == BSTListener.Operation.ITERATOR) {
+                iterators[0]++;
+            }
+        });
+        List<Runnable> walks = List.of(
+                () -> tree.iterator(),
+                () -> tree.descendingIterator(),
+                () -> tree.preorderIterator(),
+                () -> tree.postorderIterator(),
+                () -> tree.rangeIterator(10, 20),
+                () -> tree.spliterator(),
+                () -> tree.stream().count(),
+                () -> tree.subSet(10, true, 20, true).iterator(),
+                () -> tree.headSet(50, false).descendingIterator(),
+                () -> tree.descendingSet().iterator());
+        for (Runnable walk : walks) {
+            int before = iterators[0];
+            walk.run();
+            assertEquals(before + 1, iterators[0]);
+        }
+        // the halves of a parallel stream are one walk.
+        int before = iterators[0];
+        assertEquals(4950, tree.parallelStream().mapToInt(Integer::intValue).sum());
+        assertEquals(before + 1, iterators[0]);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BST.Balance.class)
+    void cursorAndBatchLookups(BST.Balance balance) {
+        Random random = new Random(31 + balance.ordinal());
+        BST<Integer> tree = new BST<>(balance);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 500; i++) {
+            int key = random.nextInt(2_000);
+            tree.add(key);
+            expected.add(key);
+        }
+
+        Integer[] keys = new Integer[300];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(2_100) - 50;
+        }
+        Arrays.sort(keys);
+        boolean[] found = tree.containsEach(keys);
+        Integer[] ceilings = tree.ceilingAll(keys);
+        Integer[] floors = tree.floorAll(keys);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(expected.contains(keys[i]), found[i]);
+            assertEquals(expected.ceiling(keys[i]), ceilings[i]);
+            assertEquals(expected.floor(keys[i]), floors[i]);
+        }
+        Integer[] unsorted = { 5, 3 };
+        assertThrows(IllegalArgumentException.class, () -> tree.containsEach(unsorted));
+
+        BST<Integer>.Cursor cursor = tree.cursor();
+        for (Integer key : keys) {
+            assertEquals(expected.ceiling(key), cursor.seekForward(key));
+        }
+        for (int i = 0; i < 200; i++) {
+            int key = random.nextInt(2_100) - 50;
+            Integer at = cursor.seek(key);
+            assertEquals(expected.ceiling(key), at);
+            if (at != null) {
+                assertEquals(expected.higher(at), cursor.next());
+                assertEquals(at, cursor.prev());
+                assertEquals(expected.lower(at), cursor.prev());
+            }
+        }
+        tree.add(-100);
+        assertThrows(ConcurrentModificationException.class, () -> cursor.next());
+        assertEquals(Integer.valueOf(-100), cursor.seek(-1_000));
+    }
+
+    @ParameterizedTest
+    @EnumSource(BST.Balance.class)
+    void serializationAndEquality(BST.Balance balance) throws IOException {
+        Random random = new Random(41 + balance.ordinal());
+        BST<Integer> tree = new BST<>(balance);
+        for (int key : randomKeys(random, 2_000)) {
+            tree.add(key);
+        }
+        TreeSet<Integer> expected = new TreeSet<>(tree);
+
+        BST<Integer> copy = copy(tree, KeyCodec.INTEGER, balance);
+        copy.checkInvariants();
+        assertEquals(tree, copy);
+        assertEquals(expected, copy);
+        assertEquals(copy, expected);
+        assertEquals(expected.hashCode(), copy.hashCode());
+
+        // the hash code is kept up to date by later changes.
+        copy.add(-1);
+        assertNotEquals(tree, copy);
+        assertEquals(tree.hashCode() - 1, copy.hashCode());
+        copy.remove(-1);
+        copy.remove(expected.first());
+        copy.add(KEYS + 1);
+        assertEquals(tree.size(), copy.size());
+        assertNotEquals(tree, copy);
+        assertFalse(copy.equals(expected));
+
+        BST<String> words = new BST<>(balance);
+        for (int key : expected) {
+            words.add("key " + key + " é");
+        }
+        BST<String> wordsCopy = copy(words, KeyCodec.STRING, balance);
+        wordsCopy.checkInvariants();
+        assertIterableEquals(words, wordsCopy);
+
+        assertEquals(expected.stream().collect(Collectors.toList()), tree.stream().collect(Collectors.toList()));
+        assertEquals(expected.stream().mapToLong(k -> k).sum(), tree.parallelStream().mapToLong(k -> k).sum());
+    }
+
+    // writes the tree out and reads it back in.
+    private static <E> BST<E> copy(BST<E> tree, KeyCodec<E> codec, BST.Balance balance) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.serialize(Channels.newChannel(out), codec);
+        return BST.deserialize(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), codec, null,
+                balance);
+    }
+
+    private static List<Integer> randomKeys(Random random, int count) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(random.nextInt(KEYS));
+        }
+        return keys;
+    }
+
+    // walks both iterators in step and removes the keys near the given key.
+    private static void removeWhileIterating(Iterator<Integer> expected, Iterator<Integer> actual, int key) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            Integer next = expected.next();
+            assertEquals(next, actual.next());
+            if (Math.abs(next - key) < 50 && next % 4 == 0) {
+                expected.remove();
+                actual.remove();
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private static void assertLookups(TreeSet<Integer> expected, BST<Integer> tree, int key) {
+        assertEquals(expected.contains(key), tree.contains(key));
+        assertEquals(expected.ceiling(key), tree.ceiling(key));
+        assertEquals(expected.floor(key), tree.floor(key));
+        assertEquals(expected.lower(key), tree.lower(key));
+        assertEquals(expected.higher(key), tree.higher(key));
+        int rank = expected.headSet(key, false).size();
+        assertEquals(rank, tree.rank(key));
+        assertEquals(expected.contains(key) ? rank : -1, tree.indexOf(key));
+        if (rank < expected.size()) {
+            assertEquals(expected.ceiling(key), tree.get(rank));
+        }
+        int to = key + 25;
+        assertEquals(expected.subSet(key, true, to, true).size(), tree.countInRange(key, to));
+        assertEquals(new ArrayList<>(expected.subSet(key, true, to, true)), tree.getRange(key, to));
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), tree.first());
+            assertEquals(expected.last(), tree.last());
+        }
+    }
+
+    private static void assertSameView(NavigableSet<Integer> expected, NavigableSet<Integer> view, Random random) {
+        assertEquals(expected.size(), view.size());
+        assertEquals(expected.isEmpty(), view.isEmpty());
+        assertIterableEquals(expected, view);
+        assertIterableEquals(expected.descendingSet(), view.descendingSet());
+        List<Integer> descending = new ArrayList<>();
+        view.descendingIterator().forEachRemaining(descending::add);
+        List<Integer> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        assertEquals(reversed, descending);
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), view.first());
+            assertEquals(expected.last(), view.last());
+        }
+        for (int i = 0; i < 5; i++) {
+            int key = random.nextInt(KEYS + 20) - 10;
+            assertEquals(expected.contains(key), view.contains(key));
+            assertEquals(expected.ceiling(key), view.ceiling(key));
+            assertEquals(expected.floor(key), view.floor(key));
+            assertEquals(expected.lower(key), view.lower(key));
+            assertEquals(expected.higher(key), view.higher(key));
+        }
+        assertArrayEquals(expected.toArray(), view.toArray());
+    }
+
+    // returns true if the key lies inside the bounds of the view.
+    private static boolean isInView(NavigableSet<Integer> view, int key) {
+        try {
+            view.subSet(key, true, key, true);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // checks that every element of the result that is in the given tree is the
+    // same instance.
+    private static void assertKeepsInstances(BST<String> tree, BST<String> result) {
+        result.checkInvariants();
+        for (String e : result) {
+            String own = tree.ceiling(e);
+            if (e.equals(own)) {
+                assertSame(own, e);
+            }
+        }
+    }
+
+    private static void assertSameTree(TreeSet<Integer> expected, BST<Integer> tree) {
+        tree.checkInvariants();
+        assertEquals(expected.size(), tree.size());
+        assertIterableEquals(expected, tree);
+    }
+
+}
@@ -0,0 +1,182 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Tests that add and remove millions of sorted keys, and that use a degenerate
+ * tree as deep as its size, to make sure no operation recurses on the height of
+ * the tree.
+ *
+ * @author Kei Oshima.
+ */
+
+class BSTStressTest {
+
+    // sorted keys added one by one to the balanced trees.
+    private static final int MILLIONS = 2_000_000;
+    // sorted keys added one by one to an unbalanced tree, which then becomes a
+    // chain this deep. Every add walks the whole chain, so it is kept smaller.
+    private static final int CHAIN = 50_000;
+
+    @ParameterizedTest
+    @EnumSource(value = BST.Balance.class, names = { "AVL", "RED_BLACK" })
+    void millionsOfSortedKeys(BST.Balance balance) {
+        BST<Integer> tree = new BST<>(balance);
+        for (int i = 0; i < MILLIONS; i++) {
+            assertTrue(tree.add(i));
+        }
+        assertEquals(MILLIONS, tree.size());
+        // both balance modes stay within twice the height of a perfect tree.
+        assertTrue(tree.height() <= 2 * 21);
+        tree.checkInvariants();
+
+        int expected = 0;
+        for (int key : tree) {
+            assertEquals(expected++, key);
+        }
+        assertEquals(MILLIONS, expected);
+
+        for (int i = MILLIONS - 1; i >= 0; i -= 2) {
+            assertTrue(tree.remove(i));
+        }
+        assertEquals(MILLIONS / 2, tree.size());
+        tree.checkInvariants();
+        for (int i = 0; i < MILLIONS; i += 2) {
+            assertTrue(tree.remove(i));
+        }
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.height());
+    }
+
+    @Test
+    void millionsOfSortedKeysInBulk() {
+        Integer[] keys = new Integer[4 * MILLIONS];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        for (BST.Balance balance : BST.Balance.values()) {
+            BST<Integer> tree = new BST<>(keys, balance);
+            assertEquals(keys.length, tree.size());
+            assertTrue(tree.height() <= 23);
+            tree.checkInvariants();
+            assertEquals(keys.length / 2, tree.removeRange(keys.length / 4, 3 * keys.length / 4 - 1));
+            tree.checkInvariants();
+        }
+    }
+
+    @Test
+    void sortedKeysWithAutoRebalance() {
+        // sorted keys make the tree rebuild itself every few adds, so this uses
+        // fewer keys than the balanced trees.
+        BST<Integer> tree = new BST<>();
+        tree.setAutoRebalance(2);
+        for (int i = 0; i < CHAIN; i++) {
+            tree.add(i);
+        }
+        assertTrue(tree.height() <= 2 * 16);
+        tree.checkInvariants();
+    }
+
+    @Test
+    void ascendingChain() throws IOException {
+        BST<Integer> tree = new BST<>();
+        for (int i = 0; i < CHAIN; i++) {
+            tree.add(i);
+        }
+        checkChain(tree);
+    }
+
+    @Test
+    void descendingChain() throws IOException {
+        BST<Integer> tree = new BST<>();
+        for (int i = CHAIN - 1; i >= 0; i--) {
+            tree.add(i);
+        }
+        checkChain(tree);
+    }
+
+    @Test
+    void chainInTreeFormat() {
+        // the text of a chain grows with the square of its depth, so this chain is
+        // shorter than the others.
+        BST<Integer> tree = new BST<>();
+        for (int i = 0; i < 1_000; i++) {
+            tree.add(i);
+        }
+        String text = tree.toStringTreeFormat();
+        assertEquals(2 * 1_000 + 1, text.split("\n").length);
+        assertTrue(text.contains("|--999\n"));
+    }
+
+    // runs every kind of operation on a tree of the keys 0 to CHAIN - 1 that is a
+    // single chain of nodes.
+    private static void checkChain(BST<Integer> tree) throws IOException {
+        assertEquals(CHAIN, tree.size());
+        assertEquals(CHAIN - 1, tree.height());
+        assertEquals(CHAIN - 1, tree.stats().height());
+        assertFalse(tree.isFull());
+        tree.checkInvariants();
+
+        assertTrue(tree.contains(CHAIN - 1));
+        assertFalse(tree.contains(CHAIN));
+        assertEquals(Integer.valueOf(0), tree.first());
+        assertEquals(Integer.valueOf(CHAIN - 1), tree.last());
+        assertEquals(Integer.valueOf(CHAIN - 1), tree.ceiling(CHAIN - 1));
+        assertEquals(Integer.valueOf(CHAIN - 1), tree.floor(CHAIN + 5));
+        assertEquals(Integer.valueOf(CHAIN - 2), tree.lower(CHAIN - 1));
+        assertNull(tree.higher(CHAIN - 1));
+        assertEquals(Integer.valueOf(CHAIN - 1), tree.get(CHAIN - 1));
+        assertEquals(CHAIN - 1, tree.rank(CHAIN - 1));
+        assertEquals(CHAIN / 2, tree.countInRange(0, CHAIN / 2 - 1));
+
+        assertEquals(CHAIN, count(tree.iterator()));
+        assertEquals(CHAIN, count(tree.descendingIterator()));
+        assertEquals(CHAIN, count(tree.preorderIterator()));
+        assertEquals(CHAIN, count(tree.postorderIterator()));
+        assertEquals(CHAIN, tree.stream().count());
+        assertEquals(10, tree.getRange(100, 109).size());
+        assertEquals(tree, new BST<>(tree.toArray(new Integer[0])));
+        assertTrue(tree.hashCode() != 0);
+
+        StringBuilder text = new StringBuilder();
+        tree.writeTo(text);
+        assertTrue(text.toString().endsWith(", " + (CHAIN - 1) + "]"));
+        text.setLength(0);
+        tree.writeTreeFormatTo(text, Integer.MAX_VALUE, 100);
+        // the first 100 nodes are written, then the tree is cut off.
+        assertTrue(text.toString().endsWith("...\n"));
+        assertEquals(100, text.toString().split("\n").length - count(text.toString(), "null") - 1);
+
+        assertEquals(10, tree.removeRange(100, 109));
+        assertTrue(tree.removeIf(k -> k % 1_000 == 0));
+        tree.checkInvariants();
+
+        tree.rebalance();
+        assertTrue(tree.height() <= 16);
+        tree.checkInvariants();
+    }
+
+    private static int count(String text, String word) {
+        return text.split(word, -1).length - 1;
+    }
+
+    private static int count(Iterator<?> iterator) {
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,167 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests that run the same random operations on a CompactBST and on a TreeSet and
+ * compare the results, checking the red-black rules and the free list after
+ * every change.
+ *
+ * @author Kei Oshima.
+ */
+
+class CompactBSTDifferentialTest {
+
+    private static final int STEPS = 20_000;
+    private static final int KEYS = 600;
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void randomUpdates(boolean reversed) {
+        Random random = new Random(reversed ? 2 : 1);
+        Comparator<Integer> comparator = reversed ? Comparator.reverseOrder() : null;
+        // no room at first, so the arrays have to grow.
+        CompactBST<Integer> tree = new CompactBST<>(comparator, 0);
+        TreeSet<Integer> expected = new TreeSet<>(comparator);
+
+        for (int step = 0; step < STEPS; step++) {
+            int key = random.nextInt(KEYS);
+            switch (random.nextInt(12)) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                assertEquals(expected.add(key), tree.add(key));
+                break;
+            case 4:
+            case 5:
+                assertEquals(expected.remove(key), tree.remove(key));
+                break;
+            case 6: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(40));
+                assertEquals(expected.addAll(keys), tree.addAll(keys));
+                break;
+            }
+            case 7: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(20));
+                assertEquals(expected.removeAll(keys), tree.removeAll(keys));
+                break;
+            }
+            case 8:
+                removeWhileIterating(expected.iterator(), tree.iterator(), key);
+                break;
+            case 9: {
+                int to = reversed ? key - random.nextInt(30) : key + random.nextInt(30);
+                assertEquals(new ArrayList<>(expected.subSet(key, true, to, true)), tree.getRange(key, to));
+                break;
+            }
+            default:
+                if (random.nextInt(200) == 0) {
+                    expected.clear();
+                    tree.clear();
+                }
+                break;
+            }
+
+            tree.checkInvariants();
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.isEmpty(), tree.isEmpty());
+            assertLookups(expected, tree, random.nextInt(KEYS + 20) - 10);
+            if (step % 200 == 0) {
+                assertIterableEquals(expected, tree);
+                assertEquals(expected, tree);
+                assertEquals(expected.hashCode(), tree.hashCode());
+                assertTrue(tree.height() <= 2 * (32 - Integer.numberOfLeadingZeros(tree.size() + 1)));
+            }
+        }
+    }
+
+    @Test
+    void slotsAreReused() {
+        CompactBST<Integer> tree = new CompactBST<>(null, 100);
+        for (int i = 0; i < 100; i++) {
+            tree.add(i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            tree.remove(i);
+        }
+        tree.checkInvariants();
+        for (int i = 100; i < 150; i++) {
+            tree.add(i);
+        }
+        tree.checkInvariants();
+        assertEquals(100, tree.size());
+        assertEquals(Integer.valueOf(149), tree.last());
+    }
+
+    @Test
+    void misuseFails() {
+        CompactBST<Integer> tree = new CompactBST<>();
+        assertThrows(NoSuchElementException.class, tree::first);
+        assertThrows(NullPointerException.class, () -> tree.add(null));
+        assertThrows(NullPointerException.class, () -> tree.contains(null));
+        assertThrows(IllegalArgumentException.class, () -> new CompactBST<Integer>(null, -1));
+        tree.add(1);
+        tree.add(2);
+        assertThrows(IllegalArgumentException.class, () -> tree.getRange(2, 1));
+
+        Iterator<Integer> iterator = tree.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        iterator.next();
+        tree.add(3);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    // removes the elements divisible by 3 after the given key through both
+    // iterators, comparing the elements they return.
+    private static void removeWhileIterating(Iterator<Integer> expected, Iterator<Integer> actual, int key) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            int next = expected.next();
+            assertEquals(next, actual.next());
+            if (next >= key && next % 3 == 0) {
+                expected.remove();
+                actual.remove();
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private static void assertLookups(TreeSet<Integer> expected, CompactBST<Integer> tree, int key) {
+        assertEquals(expected.contains(key), tree.contains(key));
+        assertEquals(expected.ceiling(key), tree.ceiling(key));
+        assertEquals(expected.floor(key), tree.floor(key));
+        assertEquals(expected.lower(key), tree.lower(key));
+        assertEquals(expected.higher(key), tree.higher(key));
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), tree.first());
+            assertEquals(expected.last(), tree.last());
+        }
+    }
+
+    private static List<Integer> randomKeys(Random random, int count) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(random.nextInt(KEYS));
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,212 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests that run the same random operations on a ConcurrentBST and on a TreeSet
+ * and compare the results, and tests that change the set from many threads at
+ * once and then check that the size and the elements agree.
+ *
+ * @author Kei Oshima.
+ */
+
+class ConcurrentBSTDifferentialTest {
+
+    private static final int STEPS = 20_000;
+    private static final int KEYS = 600;
+    private static final int THREADS = 4;
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void randomUpdates(boolean reversed) {
+        Random random = new Random(reversed ? 2 : 1);
+        Comparator<Integer> comparator = reversed ? Comparator.reverseOrder() : null;
+        ConcurrentBST<Integer> tree = new ConcurrentBST<>(comparator);
+        TreeSet<Integer> expected = new TreeSet<>(comparator);
+
+        for (int step = 0; step < STEPS; step++) {
+            int key = random.nextInt(KEYS);
+            switch (random.nextInt(12)) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                assertEquals(expected.add(key), tree.add(key));
+                break;
+            case 4:
+            case 5:
+                assertEquals(expected.remove(key), tree.remove(key));
+                break;
+            case 6: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(40));
+                assertEquals(expected.addAll(keys), tree.addAll(keys));
+                break;
+            }
+            case 7: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(20));
+                assertEquals(expected.removeAll(keys), tree.removeAll(keys));
+                break;
+            }
+            case 8:
+                removeWhileIterating(expected.iterator(), tree.iterator(), key);
+                break;
+            case 9: {
+                int to = reversed ? key - random.nextInt(30) : key + random.nextInt(30);
+                assertEquals(new ArrayList<>(expected.subSet(key, true, to, true)), tree.getRange(key, to));
+                break;
+            }
+            default:
+                if (random.nextInt(200) == 0) {
+                    expected.clear();
+                    tree.clear();
+                }
+                break;
+            }
+
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.isEmpty(), tree.isEmpty());
+            assertLookups(expected, tree, random.nextInt(KEYS + 20) - 10);
+            if (step % 200 == 0) {
+                assertIterableEquals(expected, tree);
+                assertEquals(expected, tree);
+                assertEquals(new ArrayList<>(expected), tree.stream().collect(Collectors.toList()));
+                assertEquals(expected.size(), tree.parallelStream().count());
+            }
+        }
+    }
+
+    @Test
+    void spliteratorIsNotSized() {
+        ConcurrentBST<Integer> tree = new ConcurrentBST<>();
+        for (int i = 0; i < 100; i++) {
+            tree.add(i);
+        }
+        Spliterator<Integer> spliterator = tree.spliterator();
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.CONCURRENT));
+        assertEquals(4950, tree.parallelStream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void threadsAddAndRemoveAtOnce() throws InterruptedException {
+        ConcurrentBST<Integer> tree = new ConcurrentBST<>();
+        // every thread adds all the keys and removes the odd ones, so the threads
+        // race on the same elements.
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i += 2) {
+            expected.add(i);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 20_000; i++) {
+                        tree.add(i);
+                        int odd = 2 * random.nextInt(10_000) + 1;
+                        tree.remove(odd);
+                    }
+                    for (int i = 1; i < 20_000; i += 2) {
+                        tree.remove(i);
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+        assertEquals(expected.size(), tree.size());
+        assertIterableEquals(expected, tree);
+
+        // clear ends even while other threads keep adding.
+        Thread adder = new Thread(() -> {
+            for (int i = 20_000; i < 40_000; i++) {
+                tree.add(i);
+            }
+        });
+        adder.start();
+        tree.clear();
+        adder.join();
+        assertEquals(tree.stream().count(), tree.size());
+        tree.clear();
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.size());
+    }
+
+    @Test
+    void misuseFails() {
+        ConcurrentBST<Integer> tree = new ConcurrentBST<>();
+        assertThrows(NullPointerException.class, () -> tree.add(null));
+        assertThrows(NullPointerException.class, () -> tree.remove(null));
+        Iterator<Integer> iterator = tree.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+    }
+
+    // removes the elements divisible by 3 after the given key through both
+    // iterators, comparing the elements they return.
+    private static void removeWhileIterating(Iterator<Integer> expected, Iterator<Integer> actual, int key) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            int next = expected.next();
+            assertEquals(next, actual.next());
+            if (next >= key && next % 3 == 0) {
+                expected.remove();
+                actual.remove();
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private static void assertLookups(TreeSet<Integer> expected, ConcurrentBST<Integer> tree, int key) {
+        assertEquals(expected.contains(key), tree.contains(key));
+        assertEquals(expected.ceiling(key), tree.ceiling(key));
+        assertEquals(expected.floor(key), tree.floor(key));
+        assertEquals(expected.lower(key), tree.lower(key));
+        assertEquals(expected.higher(key), tree.higher(key));
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), tree.first());
+            assertEquals(expected.last(), tree.last());
+        }
+    }
+
+    private static List<Integer> randomKeys(Random random, int count) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(random.nextInt(KEYS));
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,194 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that run the same random operations on an IntBST and on a TreeSet and
+ * compare the results, checking the red-black rules after every change.
+ *
+ * @author Kei Oshima.
+ */
+
+class IntBSTDifferentialTest {
+
+    private static final int STEPS = 20_000;
+    private static final int KEYS = 600;
+
+    @Test
+    void randomUpdates() {
+        Random random = new Random(1);
+        IntBST tree = new IntBST();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int step = 0; step < STEPS; step++) {
+            int key = random.nextInt(KEYS);
+            switch (random.nextInt(10)) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                assertEquals(expected.add(key), tree.add(key));
+                break;
+            case 4:
+            case 5:
+                assertEquals(expected.remove(key), tree.remove(key));
+                break;
+            case 6:
+                removeWhileIterating(expected.iterator(), tree.iterator(), key);
+                break;
+            case 7: {
+                int to = key + random.nextInt(30);
+                assertArrayEquals(toArray(expected.subSet(key, true, to, true)), tree.getRange(key, to));
+                TreeSet<Integer> seen = new TreeSet<>();
+                tree.forEachInRange(key, to, seen::add);
+                assertEquals(expected.subSet(key, true, to, true), seen);
+                break;
+            }
+            case 8:
+                // rebuild the tree from its keys in a random order.
+                if (random.nextInt(100) == 0) {
+                    int[] keys = tree.stream().toArray();
+                    for (int i = keys.length - 1; i > 0; i--) {
+                        int j = random.nextInt(i + 1);
+                        int swap = keys[i];
+                        keys[i] = keys[j];
+                        keys[j] = swap;
+                    }
+                    tree = new IntBST(keys);
+                }
+                break;
+            default:
+                if (random.nextInt(200) == 0) {
+                    expected.clear();
+                    tree.clear();
+                }
+                break;
+            }
+
+            tree.checkInvariants();
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.isEmpty(), tree.isEmpty());
+            assertLookups(expected, tree, random.nextInt(KEYS + 20) - 10);
+            if (step % 200 == 0) {
+                assertArrayEquals(toArray(expected), tree.toArray());
+                assertEquals(expected.toString(), tree.toString());
+                assertTrue(tree.height() <= 2 * (32 - Integer.numberOfLeadingZeros(tree.size() + 1)));
+            }
+        }
+    }
+
+    @Test
+    void extremeKeys() {
+        int[] keys = { Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE, Integer.MIN_VALUE, 0 };
+        IntBST tree = new IntBST(keys);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int key : keys) {
+            expected.add(key);
+        }
+        tree.checkInvariants();
+        assertArrayEquals(toArray(expected), tree.toArray());
+        for (int key : new int[] { Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -2, 2, Integer.MAX_VALUE - 1,
+                Integer.MAX_VALUE }) {
+            assertLookups(expected, tree, key);
+        }
+        assertArrayEquals(toArray(expected), tree.getRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> tree.getRange(1, 0));
+
+        assertTrue(tree.remove(Integer.MIN_VALUE));
+        assertTrue(tree.remove(Integer.MAX_VALUE));
+        tree.checkInvariants();
+        assertArrayEquals(new int[] { -1, 0, 1 }, tree.toArray());
+    }
+
+    @Test
+    void sortedKeysKeepTheTreeBalanced() {
+        IntBST tree = new IntBST();
+        for (int i = 0; i < 100_000; i++) {
+            tree.add(i);
+        }
+        tree.checkInvariants();
+        assertTrue(tree.height() <= 2 * 17);
+        for (int i = 0; i < 100_000; i += 2) {
+            tree.remove(i);
+        }
+        tree.checkInvariants();
+        assertTrue(tree.height() <= 2 * 16);
+        assertEquals(0, new IntBST().height());
+        // a tree built from 2^17 - 1 keys is perfect.
+        IntBST perfect = new IntBST(sequence((1 << 17) - 1));
+        perfect.checkInvariants();
+        assertEquals(16, perfect.height());
+    }
+
+    @Test
+    void iteratorFailsFast() {
+        IntBST tree = new IntBST(new int[] { 1, 2, 3 });
+        PrimitiveIterator.OfInt iterator = tree.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        iterator.nextInt();
+        tree.add(4);
+        assertThrows(ConcurrentModificationException.class, iterator::nextInt);
+        assertThrows(NoSuchElementException.class, () -> new IntBST().first());
+        assertThrows(NoSuchElementException.class, () -> new IntBST().iterator().nextInt());
+    }
+
+    // removes the elements divisible by 3 after the given key through both
+    // iterators, comparing the elements they return.
+    private static void removeWhileIterating(Iterator<Integer> expected, PrimitiveIterator.OfInt actual, int key) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            int next = expected.next();
+            assertEquals(next, actual.nextInt());
+            if (next >= key && next % 3 == 0) {
+                expected.remove();
+                actual.remove();
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private static void assertLookups(TreeSet<Integer> expected, IntBST tree, int key) {
+        assertEquals(expected.contains(key), tree.contains(key));
+        assertEquals(expected.ceiling(key), boxed(tree.ceiling(key)));
+        assertEquals(expected.floor(key), boxed(tree.floor(key)));
+        assertEquals(expected.lower(key), boxed(tree.lower(key)));
+        assertEquals(expected.higher(key), boxed(tree.higher(key)));
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), tree.first());
+            assertEquals(expected.last(), tree.last());
+        }
+    }
+
+    private static Integer boxed(OptionalInt key) {
+        return key.isPresent() ? key.getAsInt() : null;
+    }
+
+    private static int[] toArray(Iterable<Integer> keys) {
+        TreeSet<Integer> sorted = new TreeSet<>();
+        keys.forEach(sorted::add);
+        return sorted.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] sequence(int n) {
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        return keys;
+    }
+
+}
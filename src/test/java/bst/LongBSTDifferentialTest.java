@@ -0,0 +1,196 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that run the same random operations on a LongBST and on a TreeSet and
+ * compare the results, checking the red-black rules after every change.
+ *
+ * @author Kei Oshima.
+ */
+
+class LongBSTDifferentialTest {
+
+    private static final int STEPS = 20_000;
+    private static final int KEYS = 600;
+    // distance between the keys, so they do not fit in an int.
+    private static final long SCALE = 1L << 33;
+
+    @Test
+    void randomUpdates() {
+        Random random = new Random(1);
+        LongBST tree = new LongBST();
+        TreeSet<Long> expected = new TreeSet<>();
+
+        for (int step = 0; step < STEPS; step++) {
+            long key = (random.nextInt(KEYS) - KEYS / 2) * SCALE;
+            switch (random.nextInt(10)) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                assertEquals(expected.add(key), tree.add(key));
+                break;
+            case 4:
+            case 5:
+                assertEquals(expected.remove(key), tree.remove(key));
+                break;
+            case 6:
+                removeWhileIterating(expected.iterator(), tree.iterator(), key);
+                break;
+            case 7: {
+                long to = key + random.nextInt(30) * SCALE;
+                assertArrayEquals(toArray(expected.subSet(key, true, to, true)), tree.getRange(key, to));
+                TreeSet<Long> seen = new TreeSet<>();
+                tree.forEachInRange(key, to, seen::add);
+                assertEquals(expected.subSet(key, true, to, true), seen);
+                break;
+            }
+            case 8:
+                // rebuild the tree from its keys in a random order.
+                if (random.nextInt(100) == 0) {
+                    long[] keys = tree.stream().toArray();
+                    for (int i = keys.length - 1; i > 0; i--) {
+                        int j = random.nextInt(i + 1);
+                        long swap = keys[i];
+                        keys[i] = keys[j];
+                        keys[j] = swap;
+                    }
+                    tree = new LongBST(keys);
+                }
+                break;
+            default:
+                if (random.nextInt(200) == 0) {
+                    expected.clear();
+                    tree.clear();
+                }
+                break;
+            }
+
+            tree.checkInvariants();
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.isEmpty(), tree.isEmpty());
+            assertLookups(expected, tree, (random.nextInt(KEYS + 20) - 10 - KEYS / 2) * SCALE + random.nextInt(3) - 1);
+            if (step % 200 == 0) {
+                assertArrayEquals(toArray(expected), tree.toArray());
+                assertEquals(expected.toString(), tree.toString());
+                assertTrue(tree.height() <= 2 * (32 - Integer.numberOfLeadingZeros(tree.size() + 1)));
+            }
+        }
+    }
+
+    @Test
+    void extremeKeys() {
+        long[] keys = { Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE, Long.MIN_VALUE, 0 };
+        LongBST tree = new LongBST(keys);
+        TreeSet<Long> expected = new TreeSet<>();
+        for (long key : keys) {
+            expected.add(key);
+        }
+        tree.checkInvariants();
+        assertArrayEquals(toArray(expected), tree.toArray());
+        for (long key : new long[] { Long.MIN_VALUE, Long.MIN_VALUE + 1, -2, 2, Long.MAX_VALUE - 1,
+                Long.MAX_VALUE }) {
+            assertLookups(expected, tree, key);
+        }
+        assertArrayEquals(toArray(expected), tree.getRange(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> tree.getRange(1, 0));
+
+        assertTrue(tree.remove(Long.MIN_VALUE));
+        assertTrue(tree.remove(Long.MAX_VALUE));
+        tree.checkInvariants();
+        assertArrayEquals(new long[] { -1, 0, 1 }, tree.toArray());
+    }
+
+    @Test
+    void sortedKeysKeepTheTreeBalanced() {
+        LongBST tree = new LongBST();
+        for (int i = 0; i < 100_000; i++) {
+            tree.add(i);
+        }
+        tree.checkInvariants();
+        assertTrue(tree.height() <= 2 * 17);
+        for (int i = 0; i < 100_000; i += 2) {
+            tree.remove(i);
+        }
+        tree.checkInvariants();
+        assertTrue(tree.height() <= 2 * 16);
+        assertEquals(0, new LongBST().height());
+        // a tree built from 2^17 - 1 keys is perfect.
+        LongBST perfect = new LongBST(sequence((1 << 17) - 1));
+        perfect.checkInvariants();
+        assertEquals(16, perfect.height());
+    }
+
+    @Test
+    void iteratorFailsFast() {
+        LongBST tree = new LongBST(new long[] { 1, 2, 3 });
+        PrimitiveIterator.OfLong iterator = tree.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        iterator.nextLong();
+        tree.add(4);
+        assertThrows(ConcurrentModificationException.class, iterator::nextLong);
+        assertThrows(NoSuchElementException.class, () -> new LongBST().first());
+        assertThrows(NoSuchElementException.class, () -> new LongBST().iterator().nextLong());
+    }
+
+    // removes the elements divisible by 3 after the given key through both
+    // iterators, comparing the elements they return.
+    private static void removeWhileIterating(Iterator<Long> expected, PrimitiveIterator.OfLong actual, long key) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            long next = expected.next();
+            assertEquals(next, actual.nextLong());
+            if (next >= key && next % 3 == 0) {
+                expected.remove();
+                actual.remove();
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private static void assertLookups(TreeSet<Long> expected, LongBST tree, long key) {
+        assertEquals(expected.contains(key), tree.contains(key));
+        assertEquals(expected.ceiling(key), boxed(tree.ceiling(key)));
+        assertEquals(expected.floor(key), boxed(tree.floor(key)));
+        assertEquals(expected.lower(key), boxed(tree.lower(key)));
+        assertEquals(expected.higher(key), boxed(tree.higher(key)));
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), tree.first());
+            assertEquals(expected.last(), tree.last());
+        }
+    }
+
+    private static Long boxed(OptionalLong key) {
+        return key.isPresent() ? key.getAsLong() : null;
+    }
+
+    private static long[] toArray(Iterable<Long> keys) {
+        TreeSet<Long> sorted = new TreeSet<>();
+        keys.forEach(sorted::add);
+        return sorted.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long[] sequence(int n) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        return keys;
+    }
+
+}
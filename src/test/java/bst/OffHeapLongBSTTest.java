@@ -0,0 +1,226 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for an OffHeapLongBST mapped from a file: closing and opening it again,
+ * reusing removed slots after it is opened again, and rejecting files that do
+ * not hold a tree.
+ *
+ * @author Kei Oshima.
+ */
+
+class OffHeapLongBSTTest {
+
+    // more keys than one chunk of 2^16 nodes holds.
+    private static final int KEYS = 100_000;
+    // layout of the header, as written by OffHeapLongBST.
+    private static final int HEADER_BYTES = 64;
+    private static final int NODE_BYTES = 24;
+    private static final int SIZE = 12;
+    private static final int USED = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenKeepsTheTree() throws IOException {
+        Path file = directory.resolve("tree");
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            assertTrue(tree.isEmpty());
+            for (int i = 0; i < KEYS; i++) {
+                long key = random.nextInt(4 * KEYS);
+                assertEquals(expected.add(key), tree.add(key));
+            }
+            for (int i = 0; i < KEYS / 2; i++) {
+                long key = random.nextInt(4 * KEYS);
+                assertEquals(expected.remove(key), tree.remove(key));
+            }
+        }
+
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            assertSameKeys(expected, tree);
+            // the tree can still be changed after it is opened again.
+            for (int i = 0; i < 1_000; i++) {
+                long key = random.nextInt(4 * KEYS);
+                assertEquals(expected.add(key), tree.add(key));
+                key = random.nextInt(4 * KEYS);
+                assertEquals(expected.remove(key), tree.remove(key));
+            }
+            assertSameKeys(expected, tree);
+        }
+
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            assertSameKeys(expected, tree);
+            tree.clear();
+        }
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            assertTrue(tree.isEmpty());
+            assertFalse(tree.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void removedSlotsAreReusedAfterReopen() throws IOException {
+        Path file = directory.resolve("tree");
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            for (int i = 0; i < KEYS; i++) {
+                tree.add(i);
+            }
+            // removed through the tree and through the iterator.
+            for (int i = 0; i < KEYS; i += 4) {
+                tree.remove(i);
+            }
+            PrimitiveIterator.OfLong keys = tree.iterator();
+            while (keys.hasNext()) {
+                if (keys.nextLong() % 4 == 1) {
+                    keys.remove();
+                }
+            }
+        }
+        assertEquals(KEYS / 2, readHeader(file, SIZE));
+        assertEquals(KEYS, readHeader(file, USED));
+        long length = Files.size(file);
+
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            for (int i = 0; i < KEYS; i += 2) {
+                assertTrue(tree.add(KEYS + i));
+            }
+            assertEquals(KEYS, tree.size());
+            assertEquals(2L * KEYS - 2, tree.last());
+        }
+        // every new node took the slot of a removed one.
+        assertEquals(KEYS, readHeader(file, SIZE));
+        assertEquals(KEYS, readHeader(file, USED));
+        assertEquals(length, Files.size(file));
+
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            tree.add(-1);
+        }
+        assertEquals(KEYS + 1, readHeader(file, USED));
+    }
+
+    @Test
+    void emptyFileBecomesATree() throws IOException {
+        Path file = Files.createFile(directory.resolve("tree"));
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            assertTrue(tree.isEmpty());
+            tree.add(7);
+        }
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            assertEquals(1, tree.size());
+            assertEquals(7, tree.first());
+        }
+    }
+
+    @Test
+    void shortFileIsRejectedAndKept() throws IOException {
+        Path file = directory.resolve("tree");
+        byte[] contents = "not a tree".getBytes();
+        Files.write(file, contents);
+        IOException e = assertThrows(IOException.class, () -> OffHeapLongBST.open(file));
+        assertEquals("not a tree file", e.getMessage());
+        assertTrue(Arrays.equals(contents, Files.readAllBytes(file)));
+    }
+
+    @Test
+    void fileWithoutMagicIsRejected() throws IOException {
+        Path file = directory.resolve("tree");
+        Files.write(file, new byte[HEADER_BYTES + NODE_BYTES]);
+        IOException e = assertThrows(IOException.class, () -> OffHeapLongBST.open(file));
+        assertEquals("not a tree file", e.getMessage());
+    }
+
+    @Test
+    void corruptHeaderIsRejected() throws IOException {
+        Path file = directory.resolve("tree");
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            for (int i = 0; i < 100; i++) {
+                tree.add(i);
+            }
+        }
+        // more keys than slots ever used.
+        writeHeader(file, SIZE, 101);
+        IOException e = assertThrows(IOException.class, () -> OffHeapLongBST.open(file));
+        assertEquals("corrupt tree file", e.getMessage());
+
+        writeHeader(file, SIZE, 100);
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            assertEquals(100, tree.size());
+        }
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = directory.resolve("tree");
+        try (OffHeapLongBST tree = OffHeapLongBST.open(file)) {
+            for (int i = 0; i < 100; i++) {
+                tree.add(i);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(HEADER_BYTES + 99 * NODE_BYTES);
+        }
+        IOException e = assertThrows(IOException.class, () -> OffHeapLongBST.open(file));
+        assertEquals("corrupt tree file", e.getMessage());
+        // the file is not mapped again at its full length.
+        assertEquals(HEADER_BYTES + 99 * NODE_BYTES, Files.size(file));
+    }
+
+    private static void assertSameKeys(TreeSet<Long> expected, OffHeapLongBST tree) {
+        assertEquals(expected.size(), tree.size());
+        PrimitiveIterator.OfLong keys = tree.iterator();
+        for (long key : expected) {
+            assertEquals(key, keys.nextLong());
+        }
+        assertFalse(keys.hasNext());
+        assertEquals(expected.first(), tree.first());
+        assertEquals(expected.last(), tree.last());
+        for (long key = -1; key < 4 * KEYS + 1; key += 997) {
+            assertEquals(expected.contains(key), tree.contains(key));
+            assertEquals(expected.ceiling(key), boxed(tree.ceiling(key)));
+            assertEquals(expected.floor(key), boxed(tree.floor(key)));
+        }
+    }
+
+    private static Long boxed(OptionalLong key) {
+        return key.isPresent() ? key.getAsLong() : null;
+    }
+
+    private static int readHeader(Path file, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            return header.getInt(offset);
+        }
+    }
+
+    private static void writeHeader(Path file, int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer field = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value);
+            channel.write(field, offset);
+        }
+    }
+
+}
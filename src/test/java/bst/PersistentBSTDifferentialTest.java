@@ -0,0 +1,245 @@
+package bst;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests that run the same random operations on a PersistentBST and on a TreeSet
+ * and compare the results, checking the AVL rules after every change, and
+ * tests that snapshots keep the elements they were taken with.
+ *
+ * @author Kei Oshima.
+ */
+
+class PersistentBSTDifferentialTest {
+
+    private static final int STEPS = 20_000;
+    private static final int KEYS = 600;
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void randomUpdates(boolean reversed) {
+        Random random = new Random(reversed ? 2 : 1);
+        Comparator<Integer> comparator = reversed ? Comparator.reverseOrder() : null;
+        PersistentBST<Integer> tree = new PersistentBST<>(comparator);
+        TreeSet<Integer> expected = new TreeSet<>(comparator);
+        // snapshots taken on the way and the elements they must keep.
+        List<PersistentBST<Integer>> snapshots = new ArrayList<>();
+        List<List<Integer>> snapshotElements = new ArrayList<>();
+
+        for (int step = 0; step < STEPS; step++) {
+            int key = random.nextInt(KEYS);
+            switch (random.nextInt(12)) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                assertEquals(expected.add(key), tree.add(key));
+                break;
+            case 4:
+            case 5:
+                assertEquals(expected.remove(key), tree.remove(key));
+                break;
+            case 6: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(40));
+                assertEquals(expected.addAll(keys), tree.addAll(keys));
+                break;
+            }
+            case 7: {
+                List<Integer> keys = randomKeys(random, 1 + random.nextInt(20));
+                assertEquals(expected.removeAll(keys), tree.removeAll(keys));
+                break;
+            }
+            case 8:
+                removeWhileIterating(expected.iterator(), tree.iterator(), key);
+                break;
+            case 9: {
+                int to = reversed ? key - random.nextInt(30) : key + random.nextInt(30);
+                assertEquals(new ArrayList<>(expected.subSet(key, true, to, true)), tree.getRange(key, to));
+                break;
+            }
+            case 10:
+                if (random.nextInt(20) == 0) {
+                    snapshots.add(tree.snapshot());
+                    snapshotElements.add(new ArrayList<>(expected));
+                }
+                break;
+            default:
+                if (random.nextInt(200) == 0) {
+                    expected.clear();
+                    tree.clear();
+                }
+                break;
+            }
+
+            tree.checkInvariants();
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.isEmpty(), tree.isEmpty());
+            assertLookups(expected, tree, random.nextInt(KEYS + 20) - 10);
+            if (step % 200 == 0) {
+                assertIterableEquals(expected, tree);
+                assertEquals(expected, tree);
+                assertTrue(tree.height() <= 1.45 * (32 - Integer.numberOfLeadingZeros(tree.size() + 1)));
+            }
+        }
+
+        // every snapshot still has the elements it was taken with.
+        assertFalse(snapshots.isEmpty());
+        for (int i = 0; i < snapshots.size(); i++) {
+            PersistentBST<Integer> snapshot = snapshots.get(i);
+            TreeSet<Integer> elements = new TreeSet<>(comparator);
+            elements.addAll(snapshotElements.get(i));
+            snapshot.checkInvariants();
+            assertEquals(elements.size(), snapshot.size());
+            assertIterableEquals(elements, snapshot);
+            for (int key = -5; key < KEYS + 5; key += 7) {
+                assertLookups(elements, snapshot, key);
+            }
+        }
+    }
+
+    @Test
+    void snapshotIsIsolatedAndReadOnly() {
+        PersistentBST<Integer> tree = new PersistentBST<>();
+        for (int i = 0; i < 1_000; i++) {
+            tree.add(i);
+        }
+        PersistentBST<Integer> snapshot = tree.snapshot();
+        assertSame(snapshot, snapshot.snapshot());
+
+        // an iterator walks the root it started with, like a snapshot.
+        Iterator<Integer> iterator = tree.iterator();
+        for (int i = 0; i < 1_000; i += 2) {
+            tree.remove(i);
+        }
+        tree.add(5_000);
+        int seen = 0;
+        while (iterator.hasNext()) {
+            assertEquals(Integer.valueOf(seen++), iterator.next());
+        }
+        assertEquals(1_000, seen);
+
+        assertEquals(1_000, snapshot.size());
+        assertTrue(snapshot.contains(0));
+        assertFalse(snapshot.contains(5_000));
+        assertEquals(Integer.valueOf(999), snapshot.last());
+        assertEquals(501, tree.size());
+        assertEquals(Integer.valueOf(5_000), tree.last());
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(-1));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+        assertThrows(UnsupportedOperationException.class, snapshot::clear);
+        Iterator<Integer> readOnly = snapshot.iterator();
+        readOnly.next();
+        assertThrows(UnsupportedOperationException.class, readOnly::remove);
+        assertEquals(1_000, snapshot.size());
+
+        tree.clear();
+        assertTrue(tree.isEmpty());
+        assertEquals(1_000, snapshot.size());
+        snapshot.checkInvariants();
+    }
+
+    @Test
+    void readersSeeWholeUpdates() throws InterruptedException {
+        PersistentBST<Integer> tree = new PersistentBST<>();
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> failures = new ArrayList<>();
+        // the writer keeps the elements a run from 0, so every root a reader sees
+        // must hold exactly 0 to size - 1.
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    PersistentBST<Integer> snapshot = tree.snapshot();
+                    int expected = 0;
+                    for (int element : snapshot) {
+                        assertEquals(expected++, element);
+                    }
+                    assertEquals(expected, snapshot.size());
+                }
+            } catch (Throwable e) {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            }
+        });
+        reader.start();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 500; i++) {
+                tree.add(i);
+            }
+            for (int i = 499; i >= 0; i--) {
+                tree.remove(i);
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertEquals(List.of(), failures);
+    }
+
+    @Test
+    void misuseFails() {
+        PersistentBST<Integer> tree = new PersistentBST<>();
+        assertThrows(NoSuchElementException.class, tree::first);
+        assertThrows(NullPointerException.class, () -> tree.add(null));
+        assertThrows(NullPointerException.class, () -> tree.contains(null));
+        tree.add(1);
+        tree.add(2);
+        assertThrows(IllegalArgumentException.class, () -> tree.getRange(2, 1));
+        Iterator<Integer> iterator = tree.iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+    }
+
+    // removes the elements divisible by 3 after the given key through both
+    // iterators, comparing the elements they return.
+    private static void removeWhileIterating(Iterator<Integer> expected, Iterator<Integer> actual, int key) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            int next = expected.next();
+            assertEquals(next, actual.next());
+            if (next >= key && next % 3 == 0) {
+                expected.remove();
+                actual.remove();
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private static void assertLookups(TreeSet<Integer> expected, PersistentBST<Integer> tree, int key) {
+        assertEquals(expected.contains(key), tree.contains(key));
+        assertEquals(expected.ceiling(key), tree.ceiling(key));
+        assertEquals(expected.floor(key), tree.floor(key));
+        assertEquals(expected.lower(key), tree.lower(key));
+        assertEquals(expected.higher(key), tree.higher(key));
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), tree.first());
+            assertEquals(expected.last(), tree.last());
+        }
+    }
+
+    private static List<Integer> randomKeys(Random random, int count) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(random.nextInt(KEYS));
+        }
+        return keys;
+    }
+
+}